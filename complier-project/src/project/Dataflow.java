@@ -0,0 +1,221 @@
+package project;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Deque;
+
+/**
+ * Worklist solver for the bit vector dataflow problems (the meet is the union)
+ * Sets are dense long[] bit sets. The nodes are grouped into blocks (chains where a node with one successor
+ * flows into a node with one predecessor) and only the set after each block is kept.
+ * The worklist is swept in reverse postorder of the blocks, so the code after a loop waits until the loop is done
+ * For a backward problem the graph is given reversed (edges from the successors)
+ */
+public class Dataflow {
+
+    /**
+     * Transfer function of a node
+     */
+    public interface Transfer {
+        /**
+         * @param node the node
+         * @param in the set before the node (it can be changed, it is a copy)
+         * @return the set after the node
+         */
+        long[] apply(int node, long[] in);
+    }
+
+    /**
+     * Receives the solution node by node
+     */
+    public interface Visitor {
+        /**
+         * @param node the node
+         * @param in the set before the node (only valid during the call)
+         */
+        void visit(int node, long[] in);
+    }
+
+    private final int[][] predecessors;
+    private final int[][] successors;
+    private final int start;
+    private final long[] boundary;
+    private final int words;
+    private final Transfer transfer;
+    private int[] nodes;        // the nodes block by block
+    private int[] blockStart;   // block b is nodes[blockStart[b]] .. nodes[blockStart[b + 1] - 1]
+    private int[] blockOf;      // the block of each node
+    private long[][] out;       // the set after each block
+
+    /**
+     * Constructor for Dataflow
+     * @param predecessors the nodes flowing into each node
+     * @param successors the nodes each node flows into
+     * @param start the node where the boundary set flows in (entry, or exit for a backward problem)
+     * @param boundary the set at the start node
+     * @param bits the size of the sets
+     * @param transfer the transfer function
+     */
+    public Dataflow(int[][] predecessors, int[][] successors, int start, long[] boundary, int bits, Transfer transfer) {
+        this.predecessors = predecessors;
+        this.successors = successors;
+        this.start = start;
+        this.words = words(bits);
+        this.boundary = Arrays.copyOf(boundary, words);
+        this.transfer = transfer;
+    }
+
+    /**
+     * Iterate until no set changes: a block goes back on the worklist when a block flowing into it changes,
+     * the next block taken is the first pending one after the last in reverse postorder
+     */
+    public void solve() {
+        blocks();
+        int count = blockStart.length - 1;
+        int[] order = reversePostorder(count);
+        int[] position = new int[count];
+        for (int p = 0; p < count; p++) position[order[p]] = p;
+        out = new long[count][];
+        BitSet pending = new BitSet(count);
+        pending.set(0, count);
+        int cursor = 0;
+        while (!pending.isEmpty()) {
+            int p = pending.nextSetBit(cursor);
+            if (p < 0) p = pending.nextSetBit(0);
+            pending.clear(p);
+            cursor = p + 1;
+            int block = order[p];
+            long[] set = in(block);
+            for (int i = blockStart[block]; i < blockStart[block + 1]; i++) {
+                set = transfer.apply(nodes[i], set);
+            }
+            if (out[block] != null && Arrays.equals(out[block], set)) continue;
+            out[block] = set;
+            for (int successor : successors[nodes[blockStart[block + 1] - 1]]) {
+                pending.set(position[blockOf[successor]]);
+            }
+        }
+    }
+
+    /**
+     * Give every node with the set before it to a visitor (after solve, block by block)
+     */
+    public void forEach(Visitor visitor) {
+        for (int block = 0; block + 1 < blockStart.length; block++) {
+            long[] set = in(block);
+            for (int i = blockStart[block]; i < blockStart[block + 1]; i++) {
+                visitor.visit(nodes[i], set);
+                set = transfer.apply(nodes[i], set);
+            }
+        }
+    }
+
+    /**
+     * Group the nodes into blocks: a block starts at the start node, at a node that does not have exactly one
+     * predecessor and at a node whose predecessor has other successors (a cycle without such a node gets one too)
+     * So the predecessors of the first node of a block are always the last nodes of their blocks
+     */
+    private void blocks() {
+        int count = successors.length;
+        boolean[] head = new boolean[count];
+        for (int node = 0; node < count; node++) {
+            head[node] = node == start || predecessors[node].length != 1 || successors[predecessors[node][0]].length != 1;
+        }
+        nodes = new int[count];
+        blockOf = new int[count];
+        Arrays.fill(blockOf, -1);
+        int[] starts = new int[count + 1];
+        int blocks = 0;
+        int next = 0;
+        for (int pass = 0; pass < 2; pass++) {
+            for (int node = 0; node < count; node++) {
+                if (blockOf[node] >= 0 || (pass == 0 && !head[node])) continue;
+                starts[blocks] = next;
+                int chain = node;
+                do {
+                    blockOf[chain] = blocks;
+                    nodes[next++] = chain;
+                    chain = successors[chain].length == 1 ? successors[chain][0] : -1;
+                } while (chain >= 0 && !head[chain] && blockOf[chain] < 0);
+                blocks++;
+            }
+        }
+        starts[blocks] = next;
+        blockStart = Arrays.copyOf(starts, blocks + 1);
+    }
+
+    /**
+     * Order the blocks reachable from the start node in reverse postorder, the unreachable ones after them
+     */
+    private int[] reversePostorder(int count) {
+        int[] postorder = new int[count];
+        int visited = 0;
+        boolean[] seen = new boolean[count];
+        Deque<int[]> stack = new ArrayDeque<>(); // block, index of its next successor
+        seen[blockOf[start]] = true;
+        stack.push(new int[] {blockOf[start], 0});
+        while (!stack.isEmpty()) {
+            int[] top = stack.peek();
+            int[] next = successors[nodes[blockStart[top[0] + 1] - 1]];
+            if (top[1] < next.length) {
+                int block = blockOf[next[top[1]++]];
+                if (!seen[block]) {
+                    seen[block] = true;
+                    stack.push(new int[] {block, 0});
+                }
+            } else {
+                stack.pop();
+                postorder[visited++] = top[0];
+            }
+        }
+        int[] order = new int[count];
+        for (int i = 0; i < visited; i++) order[i] = postorder[visited - 1 - i];
+        for (int block = 0, i = visited; block < count; block++) {
+            if (!seen[block]) order[i++] = block;
+        }
+        return order;
+    }
+
+    /**
+     * Get the set flowing into a block (the union of the sets after the blocks flowing into its first node)
+     */
+    private long[] in(int block) {
+        int first = nodes[blockStart[block]];
+        long[] in = first == start ? boundary.clone() : new long[words];
+        for (int predecessor : predecessors[first]) {
+            long[] set = out[blockOf[predecessor]];
+            if (set == null) continue;
+            for (int w = 0; w < words; w++) {
+                in[w] |= set[w];
+            }
+        }
+        return in;
+    }
+
+    public static int words(int bits) {
+        return (bits + Long.SIZE - 1) / Long.SIZE;
+    }
+
+    public static void set(long[] set, int bit) {
+        set[bit >>> 6] |= 1L << bit;
+    }
+
+    public static boolean get(long[] set, int bit) {
+        return (set[bit >>> 6] & (1L << bit)) != 0;
+    }
+
+    /**
+     * Clear the bits from (inclusive) to (exclusive)
+     */
+    public static void clear(long[] set, int from, int to) {
+        for (int bit = from; bit < to; bit++) {
+            if ((bit & 63) == 0 && bit + 64 <= to) {
+                set[bit >>> 6] = 0;
+                bit += 63;
+            } else {
+                set[bit >>> 6] &= ~(1L << bit);
+            }
+        }
+    }
+}
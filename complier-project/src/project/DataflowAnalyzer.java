@@ -0,0 +1,572 @@
+package project;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Dataflow analyses of a program
+ * The parse events are collected into a tree, a control flow graph is built for the main block and each function,
+ * then the variables that may still hold their entry value (reaching of the "uninitialized" definition, one bit per variable)
+ * and liveness are solved with Dataflow to report
+ *  - variables that may be read before any ass-stmt or cin >> assigned them, a call reads the globals its callee
+ *    may read before assigning them and only counts as assigning the ones the callee assigns on every path
+ *  - assignments whose value is never read (dead stores)
+ *  - var, const and function declarations that are never used
+ * Variables get dense ids and each routine only numbers the variables it touches,
+ * so the bit sets stay as small as the routine
+ */
+public class DataflowAnalyzer implements ParseListener {
+
+    /**
+     * A production of the parse with its children (Tree or Token)
+     */
+    static class Tree {
+        final Production production;
+        final List<Object> children = new ArrayList<>();
+
+        Tree(Production production) {
+            this.production = production;
+        }
+    }
+
+    /**
+     * A declared var or const
+     */
+    static class Var {
+        final Token declaration;
+        final boolean constant;
+        final boolean global;
+        final int id;
+        int references;
+
+        Var(Token declaration, boolean constant, boolean global, int id) {
+            this.declaration = declaration;
+            this.constant = constant;
+            this.global = global;
+            this.id = id;
+        }
+    }
+
+    /**
+     * A node of a control flow graph: a simple statement, a condition or a call
+     */
+    static class Node {
+        final Token token;
+        final boolean store;                    // ass-stmt (a dead store can be reported)
+        int[] uses = new int[0];                // var ids read
+        int[] defs = new int[0];                // var ids assigned
+        int[] exposed = new int[0];             // var ids a call may read before the callee assigns them
+        String callee;
+        final List<Integer> successors = new ArrayList<>();
+        final List<Integer> predecessors = new ArrayList<>();
+
+        Node(Token token, boolean store) {
+            this.token = token;
+            this.store = store;
+        }
+
+        /**
+         * Get the var ids whose value the node may read before it assigns them
+         */
+        int[] reads() {
+            return callee == null ? uses : exposed;
+        }
+    }
+
+    /**
+     * The main block or a function
+     */
+    static class Routine {
+        final Token name;                       // null for the main block
+        final Tree block;
+        final Map<String, Var> locals = new HashMap<>();
+        final List<Node> nodes = new ArrayList<>();
+        final Set<String> callees = new HashSet<>();
+        BitSet uses = new BitSet();             // global var ids read (with the callees)
+        BitSet defs = new BitSet();             // global var ids assigned (with the callees)
+        BitSet assigns = new BitSet();          // global var ids assigned on every path (with the callees)
+        BitSet exposed = new BitSet();          // global var ids that may be read before they are assigned (with the callees)
+
+        Routine(Token name, Tree block) {
+            this.name = name;
+            this.block = block;
+        }
+    }
+
+    private static final int ENTRY = 0, EXIT = 1;
+
+    private final Lexer lexer;
+    private final Deque<Tree> open = new ArrayDeque<>();
+    private Tree root;
+    private final Map<String, Var> globals = new HashMap<>();
+    private final List<Var> vars = new ArrayList<>();
+    private final Map<String, Routine> functions = new LinkedHashMap<>();
+    private Routine main;
+    private final List<Token> warningTokens = new ArrayList<>();
+    private final List<String> warnings = new ArrayList<>();
+
+    /**
+     * Constructor for DataflowAnalyzer
+     * @param lexer the lexer of the program (also used for the positions of the warnings)
+     */
+    public DataflowAnalyzer(Lexer lexer) {
+        this.lexer = lexer;
+    }
+
+    @Override
+    public void enter(Production production, Token token) {
+        Tree tree = new Tree(production);
+        if (open.isEmpty()) root = tree;
+        else open.peek().children.add(tree);
+        open.push(tree);
+    }
+
+    @Override
+    public void exit(Production production, Token token) {
+        open.pop();
+    }
+
+    @Override
+    public void terminal(Token token) {
+        if (!open.isEmpty()) open.peek().children.add(token);
+    }
+
+    /**
+     * Parse the program and run the analyses
+     * @return the warnings ("line l, column c: message"), in source order
+     * @throws SyntaxError if the program does not parse
+     */
+    public List<String> analyze() {
+        new Parser(lexer, this).parse();
+        declare();
+        for (Routine routine : routines()) {
+            routine.nodes.add(new Node(null, false)); // ENTRY
+            routine.nodes.add(new Node(null, false)); // EXIT
+            for (int last : statement(routine, routine.block, List.of(ENTRY))) {
+                edge(routine, last, EXIT);
+            }
+        }
+        summarize();
+        for (Routine routine : routines()) {
+            analyze(routine);
+        }
+        unused();
+
+        // sort the warnings by position
+        Integer[] order = new Integer[warnings.size()];
+        for (int i = 0; i < order.length; i++) order[i] = i;
+        Arrays.sort(order, Comparator.comparingInt(i -> warningTokens.get(i).offset));
+        List<String> sorted = new ArrayList<>();
+        for (int i : order) {
+            sorted.add(lexer.lines().position(warningTokens.get(i)) + ": " + warnings.get(i));
+        }
+        return sorted;
+    }
+
+    private List<Routine> routines() {
+        List<Routine> routines = new ArrayList<>(functions.values());
+        if (main != null) routines.add(main);
+        return routines;
+    }
+
+    private void warn(Token token, String message) {
+        warningTokens.add(token);
+        warnings.add(message);
+    }
+
+    /**
+     * Find the declarations: the global const / var, the functions with their own const / var, the main block
+     */
+    private void declare() {
+        for (Object child : root.children) {
+            if (!(child instanceof Tree)) continue;
+            Tree tree = (Tree) child;
+            if (tree.production == Production.CONST_DECL || tree.production == Production.VAR_DECL) {
+                declare(tree, globals, true);
+            } else if (tree.production == Production.FUNCTION_DECL) {
+                Token name = firstIdentifier(tree);
+                Tree block = null;
+                for (Object part : tree.children) {
+                    if (part instanceof Tree && ((Tree) part).production == Production.BLOCK) block = (Tree) part;
+                }
+                Routine function = new Routine(name, block);
+                for (Object part : tree.children) {
+                    if (part instanceof Tree && part != block) declare((Tree) part, function.locals, false);
+                }
+                if (name != null && block != null) functions.putIfAbsent(name.value, function);
+            } else if (tree.production == Production.BLOCK) {
+                main = new Routine(null, tree);
+            }
+        }
+    }
+
+    private void declare(Tree declaration, Map<String, Var> scope, boolean global) {
+        boolean constant = declaration.production == Production.CONST_DECL;
+        for (Object child : declaration.children) {
+            if (child instanceof Token && ((Token) child).type == TokenType.IDENTIFIER && !scope.containsKey(((Token) child).value)) {
+                Var var = new Var((Token) child, constant, global, vars.size());
+                vars.add(var);
+                scope.put(((Token) child).value, var);
+            }
+        }
+    }
+
+    private static Token firstIdentifier(Tree tree) {
+        for (Object child : tree.children) {
+            if (child instanceof Token && ((Token) child).type == TokenType.IDENTIFIER) return (Token) child;
+        }
+        return null;
+    }
+
+    /**
+     * Get all the identifier tokens of a tree (in order)
+     */
+    private static void identifiers(Tree tree, List<Token> names) {
+        for (Object child : tree.children) {
+            if (child instanceof Tree) identifiers((Tree) child, names);
+            else if (((Token) child).type == TokenType.IDENTIFIER) names.add((Token) child);
+        }
+    }
+
+    /**
+     * Find the var of a name (a local of the routine first), count the reference
+     * @return the var id or -1 (undeclared or a const)
+     */
+    private int resolve(Routine routine, Token name) {
+        Var var = routine.locals.get(name.value);
+        if (var == null) var = globals.get(name.value);
+        if (var == null) return -1;
+        var.references++;
+        return var.constant ? -1 : var.id;
+    }
+
+    private int[] resolve(Routine routine, List<Token> names) {
+        return names.stream().mapToInt(name -> resolve(routine, name)).filter(id -> id >= 0).toArray();
+    }
+
+    private void edge(Routine routine, int from, int to) {
+        routine.nodes.get(from).successors.add(to);
+        routine.nodes.get(to).predecessors.add(from);
+    }
+
+    /**
+     * Add a node flowing from the given nodes
+     * @return the index of the new node
+     */
+    private int add(Routine routine, Node node, List<Integer> from) {
+        routine.nodes.add(node);
+        int index = routine.nodes.size() - 1;
+        for (int predecessor : from) {
+            edge(routine, predecessor, index);
+        }
+        return index;
+    }
+
+    /**
+     * Build the control flow of a statement
+     * @param from the nodes flowing into the statement
+     * @return the nodes flowing out of the statement
+     */
+    private List<Integer> statement(Routine routine, Tree tree, List<Integer> from) {
+        List<Tree> statements = new ArrayList<>();
+        Tree condition = null;
+        for (Object child : tree.children) {
+            if (!(child instanceof Tree)) continue;
+            if (((Tree) child).production == Production.CONDITION) condition = (Tree) child;
+            else statements.add((Tree) child);
+        }
+        Token first = tree.children.isEmpty() || !(tree.children.get(0) instanceof Token) ? null : (Token) tree.children.get(0);
+        switch (tree.production) {
+            case BLOCK: {
+                List<Integer> flow = from;
+                for (Tree statement : statements) {
+                    flow = statement(routine, statement, flow);
+                }
+                return flow;
+            }
+            case ASS_STMT: {
+                List<Token> names = new ArrayList<>();
+                identifiers(tree, names);
+                Node node = new Node(names.get(0), true);
+                node.defs = resolve(routine, names.subList(0, 1));
+                node.uses = resolve(routine, names.subList(1, names.size()));
+                return List.of(add(routine, node, from));
+            }
+            case INOUT_STMT: {
+                List<Token> names = new ArrayList<>();
+                identifiers(tree, names);
+                Node node = new Node(first, false);
+                if (first != null && first.type == TokenType.CIN) node.defs = resolve(routine, names);
+                else node.uses = resolve(routine, names);
+                return List.of(add(routine, node, from));
+            }
+            case FUNCTION_CALL_STMT: {
+                Token name = firstIdentifier(tree);
+                Node node = new Node(first, false);
+                if (name != null) {
+                    node.callee = name.value;
+                    routine.callees.add(name.value);
+                }
+                return List.of(add(routine, node, from));
+            }
+            case IF_STMT: {
+                int test = add(routine, conditionNode(routine, first, condition), from);
+                List<Integer> flow = new ArrayList<>(statement(routine, statements.get(0), List.of(test)));
+                if (statements.size() > 1) flow.addAll(statement(routine, statements.get(1), List.of(test)));
+                else flow.add(test);
+                return flow;
+            }
+            case WHILE_STMT: {
+                int test = add(routine, conditionNode(routine, first, condition), from);
+                List<Integer> body = List.of(test);
+                for (Tree statement : statements) {
+                    body = statement(routine, statement, body);
+                }
+                for (int last : body) {
+                    edge(routine, last, test);
+                }
+                return List.of(test);
+            }
+            case REPEAT_STMT: {
+                int head = add(routine, new Node(first, false), from);
+                List<Integer> body = List.of(head);
+                for (Tree statement : statements) {
+                    body = statement(routine, statement, body);
+                }
+                int test = add(routine, conditionNode(routine, first, condition), body);
+                edge(routine, test, head);
+                return List.of(test);
+            }
+            default:
+                return from;
+        }
+    }
+
+    private Node conditionNode(Routine routine, Token token, Tree condition) {
+        Node node = new Node(token, false);
+        if (condition != null) {
+            List<Token> names = new ArrayList<>();
+            identifiers(condition, names);
+            node.uses = resolve(routine, names);
+        }
+        return node;
+    }
+
+    /**
+     * Global vars each function reads and assigns, with the functions it calls (iterated until nothing changes),
+     * then the ones it assigns on every path and the ones it may read before assigning them (the same way)
+     */
+    private void summarize() {
+        for (Routine routine : routines()) {
+            for (Node node : routine.nodes) {
+                for (int id : node.uses) if (vars.get(id).global) routine.uses.set(id);
+                for (int id : node.defs) if (vars.get(id).global) routine.defs.set(id);
+            }
+        }
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (Routine routine : functions.values()) {
+                for (String name : routine.callees) {
+                    Routine callee = functions.get(name);
+                    if (callee == null) continue;
+                    int uses = routine.uses.cardinality(), defs = routine.defs.cardinality();
+                    routine.uses.or(callee.uses);
+                    routine.defs.or(callee.defs);
+                    if (routine.uses.cardinality() != uses || routine.defs.cardinality() != defs) changed = true;
+                }
+            }
+        }
+
+        // assigned on every path: the globals that cannot have their entry value at the exit
+        // (starts from nothing, so a recursive call never counts as assigning)
+        changed = true;
+        while (changed) {
+            changed = false;
+            for (Routine routine : functions.values()) {
+                calls(routine);
+                Unassigned unassigned = new Unassigned(routine);
+                BitSet assigns = new BitSet();
+                for (int id = routine.defs.nextSetBit(0); id >= 0; id = routine.defs.nextSetBit(id + 1)) {
+                    if (!unassigned.atExit(id)) assigns.set(id);
+                }
+                if (!assigns.equals(routine.assigns)) {
+                    routine.assigns = assigns;
+                    changed = true;
+                }
+            }
+        }
+
+        // upward exposed reads: the globals read (or read by a callee) where they may still have their entry value
+        changed = true;
+        while (changed) {
+            changed = false;
+            for (Routine routine : functions.values()) {
+                calls(routine);
+                int exposed = routine.exposed.cardinality();
+                for (int[] read : new Unassigned(routine).reads) {
+                    if (vars.get(read[1]).global) routine.exposed.set(read[1]);
+                }
+                if (routine.exposed.cardinality() != exposed) changed = true;
+            }
+        }
+        for (Routine routine : routines()) {
+            calls(routine);
+        }
+    }
+
+    /**
+     * Give the call nodes of a routine the current summary of their callee
+     */
+    private void calls(Routine routine) {
+        for (Node node : routine.nodes) {
+            Routine callee = node.callee == null ? null : functions.get(node.callee);
+            if (callee == null) continue;
+            node.uses = callee.uses.stream().toArray();
+            node.defs = callee.assigns.stream().toArray(); // the ones it may assign on some paths only do not count
+            node.exposed = callee.exposed.stream().toArray();
+        }
+    }
+
+    private static int[][] edges(List<Node> nodes, boolean forward) {
+        int[][] edges = new int[nodes.size()][];
+        for (int n = 0; n < edges.length; n++) {
+            List<Integer> list = forward ? nodes.get(n).successors : nodes.get(n).predecessors;
+            edges[n] = list.stream().mapToInt(Integer::intValue).toArray();
+        }
+        return edges;
+    }
+
+    /**
+     * Variables that may still have the value they had when the routine started (one bit per variable the routine touches)
+     * An assignment, or a call that assigns on every path, clears the bit of its variable; a call that only
+     * may assign it does not. Only the answers the analyses need are kept: the reads of an entry value and the exit set
+     */
+    private class Unassigned {
+        final Map<Integer, Integer> local = new HashMap<>();
+        final int[] ids;
+        final List<int[]> reads = new ArrayList<>(); // {node, var id} where the node may read the entry value
+        long[] exit;
+
+        Unassigned(Routine routine) {
+            List<Node> nodes = routine.nodes;
+            for (Node node : nodes) {
+                for (int[] list : new int[][] {node.uses, node.defs, node.exposed}) {
+                    for (int id : list) local.putIfAbsent(id, local.size());
+                }
+            }
+            int width = local.size();
+            ids = new int[width];
+            local.forEach((id, index) -> ids[index] = id);
+
+            long[] entry = new long[Dataflow.words(width)];
+            for (int v = 0; v < width; v++) Dataflow.set(entry, v);
+            Dataflow solver = new Dataflow(edges(nodes, false), edges(nodes, true), ENTRY, entry, width, (n, in) -> {
+                for (int id : nodes.get(n).defs) {
+                    int v = local.get(id);
+                    Dataflow.clear(in, v, v + 1);
+                }
+                return in;
+            });
+            solver.solve();
+            solver.forEach((n, in) -> {
+                for (int id : nodes.get(n).reads()) {
+                    if (Dataflow.get(in, local.get(id))) reads.add(new int[] {n, id});
+                }
+                if (n == EXIT) exit = in.clone();
+            });
+        }
+
+        /**
+         * Check if a variable may still have its entry value when the routine returns
+         */
+        boolean atExit(int id) {
+            Integer v = local.get(id);
+            return v == null || Dataflow.get(exit, v);
+        }
+    }
+
+    /**
+     * Uninitialized reads (the globals in the main block, the locals in a function) and liveness (dead stores) of one routine
+     */
+    private void analyze(Routine routine) {
+        List<Node> nodes = routine.nodes;
+        Unassigned unassigned = new Unassigned(routine);
+        for (int[] read : unassigned.reads) {
+            Node node = nodes.get(read[0]);
+            Var var = vars.get(read[1]);
+            if (routine.name == null ? var.global : !var.global) {
+                warn(node.token, "variable " + var.declaration.value + " may be read "
+                        + (node.callee == null ? "" : "by " + node.callee + " ") + "before it is assigned");
+            }
+        }
+
+        // liveness: nothing is live after the main block, the globals are live after a function
+        Map<Integer, Integer> local = unassigned.local;
+        int width = unassigned.ids.length;
+        long[] exit = new long[Dataflow.words(width)];
+        if (routine.name != null) {
+            for (int v = 0; v < width; v++) {
+                if (vars.get(unassigned.ids[v]).global) Dataflow.set(exit, v);
+            }
+        }
+        Dataflow liveness = new Dataflow(edges(nodes, true), edges(nodes, false), EXIT, exit, width, (n, out) -> {
+            Node node = nodes.get(n);
+            for (int id : node.defs) {
+                int v = local.get(id);
+                Dataflow.clear(out, v, v + 1);
+            }
+            for (int id : node.uses) Dataflow.set(out, local.get(id));
+            return out;
+        });
+        liveness.solve();
+        // the set given with a node of the reversed graph is the one after it in the program
+        liveness.forEach((n, out) -> {
+            Node node = nodes.get(n);
+            if (node.store && node.defs.length > 0 && !Dataflow.get(out, local.get(node.defs[0]))) {
+                warn(node.token, "value assigned to " + node.token.value + " is never read");
+            }
+        });
+    }
+
+    /**
+     * Declarations that are never referenced (functions that are never called)
+     */
+    private void unused() {
+        for (Var var : vars) {
+            if (var.references == 0) {
+                warn(var.declaration, (var.constant ? "const " : "var ") + var.declaration.value + " is never used");
+            }
+        }
+        Set<String> called = new HashSet<>();
+        for (Routine routine : routines()) called.addAll(routine.callees);
+        for (Routine function : functions.values()) {
+            if (!called.contains(function.name.value)) warn(function.name, "function " + function.name.value + " is never called");
+        }
+    }
+
+    public static void analyze(String filePath) {
+        String input;
+        try {
+            File file = new File(filePath);
+            input = Files.readString(Path.of(file.getAbsolutePath()));
+        } catch (IOException e) {
+            System.out.println("Error reading file: " + e.getMessage());
+            return;
+        }
+        List<String> warnings;
+        try {
+            warnings = new DataflowAnalyzer(new Lexer(input)).analyze();
+        } catch (SyntaxError e) {
+            System.err.println(e.getMessage());
+            return;
+        }
+        for (String warning : warnings) {
+            System.out.println("Warning at " + warning);
+        }
+        System.out.println(warnings.size() + " warning(s)");
+    }
+}
@@ -22,6 +22,12 @@ public class Driver extends Application {
             System.out.println("Selected file: " + selectedFile.getAbsolutePath());
             // Parse the selected file
             Parser.parse(selectedFile.getAbsolutePath());
+            // Report the loop optimizations
+            LoopOptimizer.optimize(selectedFile.getAbsolutePath());
+            // Print the program with the small functions inlined
+            FunctionInliner.inline(selectedFile.getAbsolutePath());
+            // Report uninitialized reads, dead stores and unused declarations
+            DataflowAnalyzer.analyze(selectedFile.getAbsolutePath());
         } else {
             System.out.println("No file selected");
             // Close the application
@@ -0,0 +1,382 @@
+package project;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Inline expansion of the parameterless functions
+ * A call site  call name  is replaced by the block of the function ( newb stmt-list endb is a statement too)
+ * when the function is small (MAX_TOKENS) and is not recursive (directly or through other functions).
+ * The const / var declarations of the function get fresh names at each call site and are added to the
+ * declarations of the caller (the global ones for the main block). Inlined functions that are no longer called are removed
+ */
+public class FunctionInliner {
+
+    public static final int MAX_TOKENS = 60;
+
+    /**
+     * A function declaration: function-heading declarations block ;
+     */
+    static class Function {
+        final String name;
+        final int start;                          // index of the function token
+        final int bodyStart;                      // index of the newb of the block
+        final int end;                            // index after the closing ;
+        final List<Token> body;                   // the block ( newb ... endb )
+        final Set<String> locals = new LinkedHashSet<>(); // names of its const / var declarations
+        final List<Token> constants = new ArrayList<>(); // its const-decl tokens (with the ones of the inlined callees)
+        final List<Token> variables = new ArrayList<>(); // its var-decl tokens (with the ones of the inlined callees)
+        final Set<String> callees = new LinkedHashSet<>();
+        List<Token> expanded;
+        boolean recursive;
+        int inlined;                              // number of call sites replaced by its block
+        // Tarjan's strongly connected components
+        int index = -1;
+        int lowLink;
+        boolean onStack;
+
+        Function(String name, int start, int bodyStart, int end, List<Token> body) {
+            this.name = name;
+            this.start = start;
+            this.bodyStart = bodyStart;
+            this.end = end;
+            this.body = body;
+        }
+
+        boolean inlinable() {
+            return !recursive && expanded.size() - 2 <= MAX_TOKENS;
+        }
+    }
+
+    private final List<Token> tokens;
+    private final Map<String, Function> functions = new LinkedHashMap<>();
+    private final Set<String> names = new HashSet<>();  // all the identifiers, the fresh names are not one of them
+    private int constantsEnd;                           // end of the global const-decl
+    private int declarationsEnd;                        // end of the global var-decl
+    private int renamed;                                // number of local declarations copied to a caller
+    private int counter;
+    private final Deque<Function> stack = new ArrayDeque<>();
+    private List<Token> result;
+
+    /**
+     * Constructor for FunctionInliner
+     * @param tokens the tokens of the program (ending with EOF)
+     */
+    public FunctionInliner(List<Token> tokens) {
+        this.tokens = tokens;
+    }
+
+    /**
+     * Inline the calls of the small functions
+     * @return the tokens of the new program
+     */
+    public List<Token> inline() {
+        collect();
+        for (Function function : functions.values()) {
+            if (function.index < 0) connect(function);
+        }
+        for (Function function : functions.values()) {
+            expand(function);
+        }
+
+        // rebuild the program: the kept functions with their expanded declarations and blocks, then the main block
+        List<Token> program = new ArrayList<>();
+        Set<String> globals = new HashSet<>();
+        List<Token> constants = new ArrayList<>();
+        List<Token> variables = new ArrayList<>();
+        int i = 0;
+        for (Function function : functions.values()) {
+            program.addAll(replaceCalls(tokens.subList(i, function.start), globals, constants, variables));
+            program.addAll(tokens.subList(function.start, function.start + 3)); // function name ;
+            program.addAll(function.constants);
+            program.addAll(function.variables);
+            program.addAll(function.expanded);
+            program.add(tokens.get(function.end - 1)); // ;
+            i = function.end;
+        }
+        program.addAll(replaceCalls(tokens.subList(i, tokens.size()), globals, constants, variables));
+        // the declarations of the functions inlined in the main block (nothing before them has changed)
+        program.addAll(declarationsEnd, variables);
+        program.addAll(constantsEnd, constants);
+
+        // remove the inlined functions that are not called any more
+        Set<String> called = new HashSet<>();
+        for (int t = 0; t + 1 < program.size(); t++) {
+            if (program.get(t).type == TokenType.CALL) called.add(program.get(t + 1).value);
+        }
+        result = new ArrayList<>();
+        for (int t = 0; t < program.size(); t++) {
+            Token token = program.get(t);
+            if (token.type == TokenType.FUNCTION && t + 1 < program.size() && removable(program.get(t + 1).value, called)) {
+                t = skipFunction(program, t);
+                continue;
+            }
+            result.add(token);
+        }
+        return result;
+    }
+
+    private boolean removable(String name, Set<String> called) {
+        Function function = functions.get(name);
+        return function != null && function.inlined > 0 && !called.contains(name);
+    }
+
+    /**
+     * Find the end of the global declarations, the function declarations, their local names and the functions they call
+     */
+    private void collect() {
+        for (Token token : tokens) {
+            if (token.type == TokenType.IDENTIFIER) names.add(token.value);
+        }
+        declarationsEnd = 0;
+        while (declarationsEnd < tokens.size() && tokens.get(declarationsEnd).type != TokenType.FUNCTION
+                && tokens.get(declarationsEnd).type != TokenType.NEWB) declarationsEnd++;
+        constantsEnd = varStart(0, declarationsEnd);
+
+        for (int i = 0; i + 1 < tokens.size(); i++) {
+            if (tokens.get(i).type != TokenType.FUNCTION) continue;
+            int bodyStart = i;
+            while (bodyStart < tokens.size() && tokens.get(bodyStart).type != TokenType.NEWB) bodyStart++;
+            int bodyEnd = matchingEndb(tokens, bodyStart);
+            if (bodyEnd + 1 >= tokens.size() || tokens.get(bodyEnd + 1).type != TokenType.SEMICOLON) continue;
+            Function function = new Function(tokens.get(i + 1).value, i, bodyStart, bodyEnd + 2,
+                    tokens.subList(bodyStart, bodyEnd + 1));
+            // const data-type const-name = value ;   var data-type name-list ;
+            for (int d = i + 3; d < bodyStart; d++) {
+                Token token = tokens.get(d);
+                if (token.type == TokenType.IDENTIFIER
+                        && (tokens.get(d - 1).type == TokenType.COMMA || isDataType(tokens.get(d - 1).type))) {
+                    function.locals.add(token.value);
+                }
+            }
+            int split = varStart(Math.min(i + 3, bodyStart), bodyStart);
+            function.constants.addAll(tokens.subList(Math.min(i + 3, bodyStart), split));
+            function.variables.addAll(tokens.subList(split, bodyStart));
+            for (int b = 0; b + 1 < function.body.size(); b++) {
+                if (function.body.get(b).type == TokenType.CALL) function.callees.add(function.body.get(b + 1).value);
+            }
+            functions.put(function.name, function);
+            i = bodyEnd + 1;
+        }
+    }
+
+    /**
+     * Get the index of the first var in tokens[from, to) (the const-decl comes before the var-decl)
+     * @return the index of the var, or to if there is none
+     */
+    private int varStart(int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (tokens.get(i).type == TokenType.VAR) return i;
+        }
+        return to;
+    }
+
+    private static boolean isDataType(TokenType type) {
+        return type == TokenType.INT || type == TokenType.FLOUT || type == TokenType.CHAR;
+    }
+
+    private static int matchingEndb(List<Token> list, int newb) {
+        int depth = 0;
+        for (int i = newb; i < list.size(); i++) {
+            if (list.get(i).type == TokenType.NEWB) depth++;
+            else if (list.get(i).type == TokenType.ENDB && --depth == 0) return i;
+        }
+        return list.size() - 1;
+    }
+
+    /**
+     * Skip a function declaration in a token list
+     * @return the index of its closing ;
+     */
+    private static int skipFunction(List<Token> list, int start) {
+        int newb = start;
+        while (newb < list.size() && list.get(newb).type != TokenType.NEWB) newb++;
+        return matchingEndb(list, newb) + 1;
+    }
+
+    /**
+     * Tarjan's algorithm on the call graph: the functions of a component with more than one function
+     * (or calling themselves) are recursive
+     */
+    private void connect(Function function) {
+        function.index = counter;
+        function.lowLink = counter;
+        counter++;
+        stack.push(function);
+        function.onStack = true;
+        for (String name : function.callees) {
+            Function callee = functions.get(name);
+            if (callee == null) continue;
+            if (callee.index < 0) {
+                connect(callee);
+                function.lowLink = Math.min(function.lowLink, callee.lowLink);
+            } else if (callee.onStack) {
+                function.lowLink = Math.min(function.lowLink, callee.index);
+            }
+        }
+        if (function.lowLink == function.index) {
+            List<Function> component = new ArrayList<>();
+            Function member;
+            do {
+                member = stack.pop();
+                member.onStack = false;
+                component.add(member);
+            } while (member != function);
+            for (Function f : component) {
+                f.recursive = component.size() > 1 || f.callees.contains(f.name);
+            }
+        }
+    }
+
+    /**
+     * Expand the calls in the block of a function (its callees are expanded first)
+     */
+    private void expand(Function function) {
+        if (function.expanded != null) return;
+        function.expanded = function.body; // a recursive callee reached again stays as a call
+        for (String name : function.callees) {
+            Function callee = functions.get(name);
+            if (callee != null && !callee.recursive) expand(callee);
+        }
+        function.expanded = replaceCalls(function.body, function.locals, function.constants, function.variables);
+    }
+
+    /**
+     * Replace the calls of the inlinable functions by their blocks
+     * @param locals names declared in the function the calls are in, a block using one of them is not copied there
+     *               (the fresh names of the copied declarations are added)
+     * @param constants the const-decl of the function the calls are in, the copied const declarations are added
+     * @param variables the var-decl of the function the calls are in, the copied var declarations are added
+     */
+    private List<Token> replaceCalls(List<Token> list, Set<String> locals, List<Token> constants, List<Token> variables) {
+        List<Token> replaced = new ArrayList<>(list.size());
+        for (int i = 0; i < list.size(); i++) {
+            Token token = list.get(i);
+            if (token.type == TokenType.CALL && i + 1 < list.size()) {
+                Function callee = functions.get(list.get(i + 1).value);
+                if (callee != null && callee.expanded != null && callee.inlinable()) {
+                    Map<String, String> fresh = new HashMap<>();
+                    for (String local : callee.locals) {
+                        fresh.put(local, freshName(local));
+                    }
+                    List<Token> block = rename(callee.expanded, fresh);
+                    if (!uses(block, locals)) {
+                        replaced.addAll(block);
+                        constants.addAll(rename(callee.constants, fresh));
+                        variables.addAll(rename(callee.variables, fresh));
+                        locals.addAll(fresh.values());
+                        renamed += fresh.size();
+                        callee.inlined++;
+                        i++;
+                        continue;
+                    }
+                }
+            }
+            replaced.add(token);
+        }
+        return replaced;
+    }
+
+    /**
+     * Get a name that is not used in the program: the name (without its trailing digits) followed by a number
+     */
+    private String freshName(String name) {
+        String base = name;
+        while (base.length() > 1 && Character.isDigit(base.charAt(base.length() - 1))) {
+            base = base.substring(0, base.length() - 1);
+        }
+        int n = 1;
+        while (names.contains(base + n)) n++;
+        names.add(base + n);
+        return base + n;
+    }
+
+    /**
+     * Copy tokens with the names of the map replaced (the function name of a call is kept)
+     */
+    private static List<Token> rename(List<Token> list, Map<String, String> fresh) {
+        if (fresh.isEmpty()) return list;
+        List<Token> renamed = new ArrayList<>(list.size());
+        for (int i = 0; i < list.size(); i++) {
+            Token token = list.get(i);
+            String name = token.type == TokenType.IDENTIFIER ? fresh.get(token.value) : null;
+            if (name != null && (i == 0 || list.get(i - 1).type != TokenType.CALL)) {
+                renamed.add(new Token(TokenType.IDENTIFIER, name, token.offset));
+            } else {
+                renamed.add(token);
+            }
+        }
+        return renamed;
+    }
+
+    private static boolean uses(List<Token> block, Set<String> names) {
+        if (names.isEmpty()) return false;
+        for (Token token : block) {
+            if (token.type == TokenType.IDENTIFIER && names.contains(token.value)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Get the statistics of the last inline() call
+     * @return one line per function and a summary line
+     */
+    public List<String> statistics() {
+        List<String> lines = new ArrayList<>();
+        int sites = 0;
+        int removed = 0;
+        Set<String> kept = new HashSet<>();
+        for (int t = 0; t + 1 < result.size(); t++) {
+            if (result.get(t).type == TokenType.FUNCTION) kept.add(result.get(t + 1).value);
+        }
+        for (Function function : functions.values()) {
+            String line = "function " + function.name + ": ";
+            if (function.recursive) line += "not inlined (recursive)";
+            else if (function.expanded.size() - 2 > MAX_TOKENS) line += "not inlined (" + (function.expanded.size() - 2)
+                    + " tokens, budget " + MAX_TOKENS + ")";
+            else if (function.inlined == 0) line += "not called";
+            else line += "inlined at " + function.inlined + " call site(s)";
+            if (!kept.contains(function.name)) {
+                line += ", removed";
+                removed++;
+            }
+            sites += function.inlined;
+            lines.add(line);
+        }
+        lines.add("Call sites inlined: " + sites + ", functions removed: " + removed + ", declarations renamed: " + renamed
+                + ", tokens: " + tokens.size() + " -> " + result.size());
+        return lines;
+    }
+
+    /**
+     * Write tokens back as source code (one statement or declaration per line)
+     */
+    public static String source(List<Token> list) {
+        StringBuilder sb = new StringBuilder();
+        for (Token token : list) {
+            if (token.type == TokenType.EOF) break;
+            sb.append(token.value);
+            sb.append(token.type == TokenType.SEMICOLON || token.type == TokenType.NEWB ? "\n" : " ");
+        }
+        return sb.toString();
+    }
+
+    public static void inline(String filePath) {
+        String input;
+        try {
+            File file = new File(filePath);
+            input = Files.readString(Path.of(file.getAbsolutePath()));
+        } catch (IOException e) {
+            System.out.println("Error reading file: " + e.getMessage());
+            return;
+        }
+        FunctionInliner inliner = new FunctionInliner(new Lexer(input).tokenize());
+        System.out.println(source(inliner.inline()));
+        for (String line : inliner.statistics()) {
+            System.out.println(line);
+        }
+    }
+}
@@ -0,0 +1,273 @@
+package project;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * LL(1) parse table generator
+ * Reads the grammar definition (grammar.txt), computes the FIRST and FOLLOW sets
+ * and builds the parse table indexed by non terminal and TokenType ordinal
+ *
+ * Symbols are ints: a terminal is its TokenType ordinal, a non terminal is TERMINALS + its index
+ * Sets of terminals are long bit masks (one bit per TokenType ordinal)
+ */
+public class Grammar {
+
+    public static final int TERMINALS = TokenType.values().length;
+    private static final String LAMBDA = "λ";
+
+    private final List<String> nonterminals = new ArrayList<>();
+    private final List<int[]> productions = new ArrayList<>(); // right hand sides
+    private final List<Integer> heads = new ArrayList<>();     // left hand side of each production
+    private final Set<String> preferred = new HashSet<>();     // "head TERMINAL" cells resolved to the non λ production
+    private boolean[] nullable;
+    private long[] first;
+    private long[] follow;
+    private short[] table;
+
+    /**
+     * Constructor for Grammar
+     * @param lines the lines of the grammar definition
+     */
+    public Grammar(List<String> lines) {
+        if (TERMINALS > Long.SIZE) throw new IllegalStateException("Too many token types for the terminal sets");
+        read(lines);
+        computeFirst();
+        computeFollow();
+        buildTable();
+    }
+
+    /**
+     * Load the grammar definition next to this class (grammar.txt)
+     * @return the grammar
+     */
+    public static Grammar load() throws IOException {
+        InputStream in = Grammar.class.getResourceAsStream("grammar.txt");
+        if (in == null) throw new IOException("grammar.txt not found");
+        List<String> lines = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lines.add(line);
+            }
+        }
+        return new Grammar(lines);
+    }
+
+    /**
+     * Read the rules: "head -> alternative | alternative", a line starting with | continues the previous rule
+     * and the conflict resolutions: "%prefer head TERMINAL"
+     */
+    private void read(List<String> lines) {
+        // join the continuation lines and find all the non terminals first
+        List<String> rules = new ArrayList<>();
+        for (String line : lines) {
+            String text = line.trim();
+            if (text.isEmpty() || text.startsWith("#")) continue;
+            if (text.startsWith("%prefer")) {
+                String[] parts = text.split("\\s+");
+                if (parts.length != 3) throw new IllegalArgumentException("Grammar: expected '%prefer head TERMINAL' in: " + text);
+                preferred.add(parts[1] + " " + parts[2]);
+                continue;
+            }
+            if (text.startsWith("|")) {
+                if (rules.isEmpty()) throw new IllegalArgumentException("Grammar: '|' without a rule: " + text);
+                rules.set(rules.size() - 1, rules.get(rules.size() - 1) + " " + text);
+                continue;
+            }
+            int arrow = text.indexOf("->");
+            if (arrow < 0) throw new IllegalArgumentException("Grammar: expected '->' in: " + text);
+            String head = text.substring(0, arrow).trim();
+            if (!nonterminals.contains(head)) nonterminals.add(head);
+            rules.add(text);
+        }
+        for (String rule : rules) {
+            int arrow = rule.indexOf("->");
+            int head = nonterminals.indexOf(rule.substring(0, arrow).trim());
+            for (String alternative : rule.substring(arrow + 2).split("\\|")) {
+                List<Integer> symbols = new ArrayList<>();
+                for (String name : alternative.trim().split("\\s+")) {
+                    if (name.isEmpty() || name.equals(LAMBDA)) continue;
+                    symbols.add(symbol(name));
+                }
+                heads.add(head);
+                productions.add(symbols.stream().mapToInt(Integer::intValue).toArray());
+            }
+        }
+    }
+
+    private int symbol(String name) {
+        int index = nonterminals.indexOf(name);
+        if (index >= 0) return TERMINALS + index;
+        try {
+            return TokenType.valueOf(name).ordinal();
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Grammar: unknown symbol " + name);
+        }
+    }
+
+    /**
+     * FIRST sets of the non terminals (and which of them derive λ), iterated until nothing changes
+     */
+    private void computeFirst() {
+        int count = nonterminals.size();
+        nullable = new boolean[count];
+        first = new long[count];
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int p = 0; p < productions.size(); p++) {
+                int head = heads.get(p);
+                long set = firstOf(productions.get(p), 0);
+                if ((first[head] | set) != first[head]) {
+                    first[head] |= set;
+                    changed = true;
+                }
+                if (!nullable[head] && nullableFrom(productions.get(p), 0)) {
+                    nullable[head] = true;
+                    changed = true;
+                }
+            }
+        }
+    }
+
+    /**
+     * FOLLOW sets of the non terminals, EOF follows the start symbol
+     */
+    private void computeFollow() {
+        follow = new long[nonterminals.size()];
+        follow[0] = bit(TokenType.EOF.ordinal());
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int p = 0; p < productions.size(); p++) {
+                int[] rhs = productions.get(p);
+                for (int i = 0; i < rhs.length; i++) {
+                    if (rhs[i] < TERMINALS) continue;
+                    int nonterminal = rhs[i] - TERMINALS;
+                    long set = firstOf(rhs, i + 1);
+                    if (nullableFrom(rhs, i + 1)) set |= follow[heads.get(p)];
+                    if ((follow[nonterminal] | set) != follow[nonterminal]) {
+                        follow[nonterminal] |= set;
+                        changed = true;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * FIRST of the symbols rhs[from..]
+     */
+    private long firstOf(int[] rhs, int from) {
+        long set = 0;
+        for (int i = from; i < rhs.length; i++) {
+            if (rhs[i] < TERMINALS) return set | bit(rhs[i]);
+            set |= first[rhs[i] - TERMINALS];
+            if (!nullable[rhs[i] - TERMINALS]) return set;
+        }
+        return set;
+    }
+
+    private boolean nullableFrom(int[] rhs, int from) {
+        for (int i = from; i < rhs.length; i++) {
+            if (rhs[i] < TERMINALS || !nullable[rhs[i] - TERMINALS]) return false;
+        }
+        return true;
+    }
+
+    private static long bit(int terminal) {
+        return 1L << terminal;
+    }
+
+    /**
+     * Fill the parse table: production p goes to [head][t] for t in FIRST(rhs), and for t in FOLLOW(head) if rhs derives λ
+     * A conflict between λ and another production keeps the other production only in a %prefer cell,
+     * any other conflict means the grammar is not LL(1)
+     */
+    private void buildTable() {
+        table = new short[nonterminals.size() * TERMINALS];
+        Arrays.fill(table, (short) -1);
+        for (int p = 0; p < productions.size(); p++) {
+            int head = heads.get(p);
+            int[] rhs = productions.get(p);
+            long set = firstOf(rhs, 0);
+            if (nullableFrom(rhs, 0)) set |= follow[head];
+            for (int t = 0; t < TERMINALS; t++) {
+                if ((set & bit(t)) == 0) continue;
+                int cell = head * TERMINALS + t;
+                int other = table[cell];
+                if (other >= 0) {
+                    boolean lambda = productions.get(other).length == 0 || rhs.length == 0;
+                    if (!lambda || !preferred.contains(nonterminals.get(head) + " " + TokenType.values()[t])) {
+                        throw new IllegalStateException("Grammar is not LL(1): " + nonterminals.get(head)
+                                + " has two productions for " + TokenType.values()[t]);
+                    }
+                    if (rhs.length == 0) continue; // keep the non λ production
+                }
+                table[cell] = (short) p;
+            }
+        }
+    }
+
+    /**
+     * Get the production to expand a non terminal with on the given token
+     * @return the production index or -1 (syntax error)
+     */
+    public int predict(int nonterminal, TokenType type) {
+        return table[nonterminal * TERMINALS + type.ordinal()];
+    }
+
+    /**
+     * Get the right hand side of a production
+     */
+    public int[] production(int index) {
+        return productions.get(index);
+    }
+
+    public int nonterminalCount() {
+        return nonterminals.size();
+    }
+
+    public int startSymbol() {
+        return TERMINALS;
+    }
+
+    public String name(int symbol) {
+        return symbol < TERMINALS ? TokenType.values()[symbol].toString() : nonterminals.get(symbol - TERMINALS);
+    }
+
+    /**
+     * Get the terminals that can start a non terminal (the non empty cells of its table row)
+     */
+    public List<TokenType> expected(int nonterminal) {
+        List<TokenType> expected = new ArrayList<>();
+        for (TokenType type : TokenType.values()) {
+            if (predict(nonterminal, type) >= 0) expected.add(type);
+        }
+        return expected;
+    }
+
+    /**
+     * Print the FIRST and FOLLOW sets of the grammar
+     */
+    public void print() {
+        for (int n = 0; n < nonterminals.size(); n++) {
+            System.out.println(nonterminals.get(n) + (nullable[n] ? " (λ)" : ""));
+            System.out.println("    FIRST  = " + names(first[n]));
+            System.out.println("    FOLLOW = " + names(follow[n]));
+        }
+    }
+
+    private static List<TokenType> names(long set) {
+        List<TokenType> names = new ArrayList<>();
+        for (TokenType type : TokenType.values()) {
+            if ((set & bit(type.ordinal())) != 0) names.add(type);
+        }
+        return names;
+    }
+}
@@ -5,8 +5,8 @@ import java.util.*;
 class Lexer {
     private final String input;
     private int pos;
-    private int line;
     private final int length;
+    private LineMap lines;
 
     /**
      * Constructor for Lexer
@@ -15,10 +15,9 @@ class Lexer {
     public Lexer(String input) {
         this.input = input;
         this.pos = 0;
-        this.line = 1;
         this.length = input.length();
     }
-    private static final Map<String, TokenType> keywords;
+    static final Map<String, TokenType> keywords;
     static {
         keywords = new HashMap<>();
         keywords.put("exit", TokenType.EXIT);
@@ -56,20 +55,59 @@ class Lexer {
      */
     private void advance() {
     	 if (pos < length) {
-             if (currentChar() == '\n') {
-                 line++; // Increment line when encountering a newline
-             }
              pos++;
          }
     }
 
+    /**
+     * Get the line start table of the input, built on the first call
+     * @return the line map to find the line and column of a token offset
+     */
+    public LineMap lines() {
+        if (lines == null) lines = new LineMap(input);
+        return lines;
+    }
+
+    /**
+     * Character classes of the ASCII characters (same answers as Character.isWhitespace/isLetter/isDigit)
+     */
+    private static final byte WHITESPACE = 1, LETTER = 2, DIGIT = 4;
+    private static final byte[] charClass = new byte[128];
+    static {
+        for (char c = 0; c < 128; c++) {
+            if (Character.isWhitespace(c)) charClass[c] |= WHITESPACE;
+            if (Character.isLetter(c)) charClass[c] |= LETTER;
+            if (Character.isDigit(c)) charClass[c] |= DIGIT;
+        }
+    }
+
+    /**
+     * Check if a character belongs to one of the given classes (non ASCII characters use Character)
+     */
+    private static boolean is(char c, int classes) {
+        if (c < 128) return (charClass[c] & classes) != 0;
+        return ((classes & WHITESPACE) != 0 && Character.isWhitespace(c))
+                || ((classes & LETTER) != 0 && Character.isLetter(c))
+                || ((classes & DIGIT) != 0 && Character.isDigit(c));
+    }
+
+    /**
+     * Find the end of a run of characters of the given classes starting at from
+     * @return the index of the first character after the run
+     */
+    private int scan(int from, int classes) {
+        int i = from;
+        while (i < length && is(input.charAt(i), classes)) {
+            i++;
+        }
+        return i;
+    }
+
     /**
      * Skip the whitespace characters
      */
     private void skipWhitespace() {
-        while (pos < length && Character.isWhitespace(currentChar())) {
-            advance();
-        }
+        pos = scan(pos, WHITESPACE);
     }
 
     /**
@@ -80,41 +118,26 @@ class Lexer {
         // Ignore the whitespaces
         skipWhitespace();
         // Check if the position is at the end of the input
-        if (pos >= length) return new Token(TokenType.EOF, "" ,line);
+        if (pos >= length) return new Token(TokenType.EOF, "" ,pos);
 
         char current = currentChar();
+        int start = pos;
 
         // Check if the current character is a letter (identifier)
         if (Character.isLetter(current)) {
-            StringBuilder sb = new StringBuilder();
-            int tokenLine = line;
-            while (pos < length && (Character.isLetter(currentChar()) || Character.isDigit(currentChar()))) {
-                sb.append(currentChar());
-                advance();
-            }
-            String value = sb.toString();
-
-            return new Token(keywords.getOrDefault(value, TokenType.IDENTIFIER), value ,tokenLine);
+            pos = scan(pos, LETTER | DIGIT);
+            String value = input.substring(start, pos);
+            return new Token(keywords.getOrDefault(value, TokenType.IDENTIFIER), value ,start);
         }
 
         // Check if the current character is a digit (integer or real value)
         if (Character.isDigit(current)) {
-            StringBuilder sb = new StringBuilder();
-            int tokenLine = line;
-            while (pos < length && Character.isDigit(currentChar())) {
-                sb.append(currentChar());
-                advance();
-            }
+            pos = scan(pos, DIGIT);
             if (currentChar() == '.') {
-                sb.append('.');
-                advance();
-                while (pos < length && Character.isDigit(currentChar())) {
-                    sb.append(currentChar());
-                    advance();
-                }
-                return new Token(TokenType.FLOUT, sb.toString() ,tokenLine);
+                pos = scan(pos + 1, DIGIT);
+                return new Token(TokenType.FLOUT, input.substring(start, pos) ,start);
             }
-            return new Token(TokenType.INT, sb.toString() ,tokenLine);
+            return new Token(TokenType.INT, input.substring(start, pos) ,start);
         }
 
         // Check for the symbols and operators
@@ -123,74 +146,74 @@ class Lexer {
                 advance();
                 if (currentChar() == '=') {
                     advance();
-                    return new Token(TokenType.ASSIGN, ":=" , line);
+                    return new Token(TokenType.ASSIGN, ":=" , start);
                 }
-                return new Token(TokenType.INVALID, String.valueOf(current) , line);
+                return new Token(TokenType.INVALID, String.valueOf(current) , start);
 		    case '+':
                 advance();
-                return new Token(TokenType.ADD, "+" , line);
+                return new Token(TokenType.ADD, "+" , start);
 		    case '#':
 		    	advance();
-		    	return new Token(TokenType.HASH, "#" , line); //#
+		    	return new Token(TokenType.HASH, "#" , start); //#
             case '-':
                 advance();
-                return new Token(TokenType.SUBTRACT, "-" , line);
+                return new Token(TokenType.SUBTRACT, "-" , start);
             case '*':
                 advance();
-                return new Token(TokenType.MULTIPLY, "*" , line);
+                return new Token(TokenType.MULTIPLY, "*" , start);
             case '/':
                 advance();
-                return new Token(TokenType.DIVIDE, "/" , line);
+                return new Token(TokenType.DIVIDE, "/" , start);
             case ',':
                 advance();
-                return new Token(TokenType.COMMA, "," , line);
+                return new Token(TokenType.COMMA, "," , start);
             case ';':
                 advance();
-                return new Token(TokenType.SEMICOLON, ";" , line);
+                return new Token(TokenType.SEMICOLON, ";" , start);
             case '.':
                 advance();
-                return new Token(TokenType.DOT, "." , line);
+                return new Token(TokenType.DOT, "." , start);
             case '(':
                 advance();
-                return new Token(TokenType.LPAREN, "(" , line);
+                return new Token(TokenType.LPAREN, "(" , start);
             case ')':
                 advance();
-                return new Token(TokenType.RPAREN, ")" , line);
+                return new Token(TokenType.RPAREN, ")" , start);
             case '=':
                 advance();
                 if(currentChar() == '!') {  // no equal case 
                 	advance();
-                	return new Token(TokenType.NOT_EQUAL, "=!" , line);
+                	return new Token(TokenType.NOT_EQUAL, "=!" , start);
                 }else if(currentChar() == '<') { // =< 
                 	advance();
-                	return new Token(TokenType.LESS_EQUAL, "=<" , line);
+                	return new Token(TokenType.LESS_EQUAL, "=<" , start);
                 }else if(currentChar() == '>'){
                 	advance();
-                	return new Token(TokenType.GREATER_EQUAL, "=>" , line);
+                	return new Token(TokenType.GREATER_EQUAL, "=>" , start);
                 }
-                return new Token(TokenType.EQUAL, "=" , line);
+                return new Token(TokenType.EQUAL, "=" , start);
             case '<':
                 advance();
                 if (currentChar() == '<') {
                     advance();
-                    return new Token(TokenType.LEFT_SHIFT, "<<" ,line);
+                    return new Token(TokenType.LEFT_SHIFT, "<<" ,start);
                 }
-                return new Token(TokenType.LESS, "<" , line);
+                return new Token(TokenType.LESS, "<" , start);
             
             case '>':
                 advance();
                 if (currentChar() == '>') {
                     advance();
-                    return new Token(TokenType.RIGHT_SHIFT, ">>" ,line);
+                    return new Token(TokenType.RIGHT_SHIFT, ">>" ,start);
                 }
-                return new Token(TokenType.GREATER, ">" , line);
+                return new Token(TokenType.GREATER, ">" , start);
 		case 'm':
                 advance();
                 if (currentChar() == 'o') {
                     advance();
                     if (currentChar() == 'd') {
                         advance();
-                        return new Token(TokenType.MOD, "mod" , line);
+                        return new Token(TokenType.MOD, "mod" , start);
                     }
                 }
                 break;
@@ -200,7 +223,7 @@ class Lexer {
                     advance();
                     if (currentChar() == 'v') {
                         advance();
-                        return new Token(TokenType.DIV, "div" , line);
+                        return new Token(TokenType.DIV, "div" , start);
                     }
                 }
                 break;
@@ -212,7 +235,7 @@ class Lexer {
                         advance();
                         if(currentChar() == 'l') {
                         	advance();
-                        	return new Token(TokenType.CALL, "call" , line);
+                        	return new Token(TokenType.CALL, "call" , start);
                         	
                         }
                     }
@@ -220,8 +243,22 @@ class Lexer {
                 break;
             default:
                 advance();
-                return new Token(TokenType.INVALID, String.valueOf(current) , line);
+                return new Token(TokenType.INVALID, String.valueOf(current) , start);
         }
-        return new Token(TokenType.INVALID, String.valueOf(current) , line);
+        return new Token(TokenType.INVALID, String.valueOf(current) , start);
+    }
+
+    /**
+     * Read all the remaining tokens (the EOF token is included as the last element)
+     * @return the list of tokens
+     */
+    public List<Token> tokenize() {
+        List<Token> tokens = new ArrayList<>();
+        Token token;
+        do {
+            token = nextToken();
+            tokens.add(token);
+        } while (token.type != TokenType.EOF);
+        return tokens;
     }
 }
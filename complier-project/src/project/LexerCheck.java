@@ -0,0 +1,159 @@
+package project;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Equivalence check of the Lexer against the original per character scan
+ * (one currentChar() / advance() per character, counting the newlines in advance())
+ * Both scanners run on the example programs and on random inputs, every token (type, value, line) must match
+ *
+ * Usage: java project.LexerCheck [examples directory] [random inputs]
+ */
+public class LexerCheck {
+
+    /**
+     * The original scan, kept as the reference
+     */
+    static class Reference {
+        private final String input;
+        private final int length;
+        private int pos;
+        private int line = 1;
+
+        Reference(String input) {
+            this.input = input;
+            this.length = input.length();
+        }
+
+        private char currentChar() {
+            return pos < length ? input.charAt(pos) : '\0';
+        }
+
+        private void advance() {
+            if (pos < length) {
+                if (currentChar() == '\n') line++;
+                pos++;
+            }
+        }
+
+        /**
+         * Get the next token as "TYPE value line"
+         */
+        String nextToken() {
+            while (pos < length && Character.isWhitespace(currentChar())) {
+                advance();
+            }
+            if (pos >= length) return TokenType.EOF + "  " + line;
+            char current = currentChar();
+            if (Character.isLetter(current)) {
+                StringBuilder sb = new StringBuilder();
+                while (pos < length && (Character.isLetter(currentChar()) || Character.isDigit(currentChar()))) {
+                    sb.append(currentChar());
+                    advance();
+                }
+                String value = sb.toString();
+                return Lexer.keywords.getOrDefault(value, TokenType.IDENTIFIER) + " " + value + " " + line;
+            }
+            if (Character.isDigit(current)) {
+                StringBuilder sb = new StringBuilder();
+                while (pos < length && Character.isDigit(currentChar())) {
+                    sb.append(currentChar());
+                    advance();
+                }
+                if (currentChar() != '.') return TokenType.INT + " " + sb + " " + line;
+                sb.append('.');
+                advance();
+                while (pos < length && Character.isDigit(currentChar())) {
+                    sb.append(currentChar());
+                    advance();
+                }
+                return TokenType.FLOUT + " " + sb + " " + line;
+            }
+            advance();
+            TokenType type;
+            String value = String.valueOf(current);
+            switch (current) {
+                case ':': type = TokenType.INVALID; if (currentChar() == '=') { advance(); type = TokenType.ASSIGN; value = ":="; } break;
+                case '+': type = TokenType.ADD; break;
+                case '#': type = TokenType.HASH; break;
+                case '-': type = TokenType.SUBTRACT; break;
+                case '*': type = TokenType.MULTIPLY; break;
+                case '/': type = TokenType.DIVIDE; break;
+                case ',': type = TokenType.COMMA; break;
+                case ';': type = TokenType.SEMICOLON; break;
+                case '.': type = TokenType.DOT; break;
+                case '(': type = TokenType.LPAREN; break;
+                case ')': type = TokenType.RPAREN; break;
+                case '=':
+                    type = TokenType.EQUAL;
+                    if (currentChar() == '!') { advance(); type = TokenType.NOT_EQUAL; value = "=!"; }
+                    else if (currentChar() == '<') { advance(); type = TokenType.LESS_EQUAL; value = "=<"; }
+                    else if (currentChar() == '>') { advance(); type = TokenType.GREATER_EQUAL; value = "=>"; }
+                    break;
+                case '<': type = TokenType.LESS; if (currentChar() == '<') { advance(); type = TokenType.LEFT_SHIFT; value = "<<"; } break;
+                case '>': type = TokenType.GREATER; if (currentChar() == '>') { advance(); type = TokenType.RIGHT_SHIFT; value = ">>"; } break;
+                default: type = TokenType.INVALID;
+            }
+            return type + " " + value + " " + line;
+        }
+    }
+
+    /**
+     * Compare the two token streams of an input
+     * @return the first difference or null
+     */
+    static String compare(String input) {
+        Reference reference = new Reference(input);
+        Lexer lexer = new Lexer(input);
+        while (true) {
+            Token token = lexer.nextToken();
+            String actual = token.type + " " + token.value + " " + lexer.lines().line(token.offset);
+            String expected = reference.nextToken();
+            if (!expected.equals(actual)) return "expected [" + expected + "] but found [" + actual + "]";
+            if (token.type == TokenType.EOF) return null;
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path examples = Path.of(args.length > 0 ? args[0] : "examples");
+        int inputs = args.length > 1 ? Integer.parseInt(args[1]) : 5000;
+        int failures = 0;
+        int files = 0;
+
+        if (Files.isDirectory(examples)) {
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(examples, "*.txt")) {
+                for (Path file : stream) {
+                    files++;
+                    String difference = compare(Files.readString(file));
+                    if (difference != null) {
+                        failures++;
+                        System.out.println(file + ": " + difference);
+                    }
+                }
+            }
+        }
+
+        // whitespace runs (with \r, vertical tab and non ASCII spaces), names, numbers, operators and non ASCII letters / digits
+        String alphabet = " \t\n\r\u000B\u001C    abcmdivxyz019.:=<>!+-*/;,()#é٣　";
+        Random random = new Random(1);
+        for (int n = 0; n < inputs; n++) {
+            StringBuilder sb = new StringBuilder();
+            int length = random.nextInt(80);
+            for (int i = 0; i < length; i++) {
+                sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            String difference = compare(sb.toString());
+            if (difference != null) {
+                failures++;
+                System.out.println("random input \"" + sb + "\": " + difference);
+            }
+        }
+
+        System.out.println(files + " example(s), " + inputs + " random input(s), " + failures + " difference(s)");
+        if (failures > 0) System.exit(1);
+    }
+}
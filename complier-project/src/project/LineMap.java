@@ -0,0 +1,55 @@
+package project;
+
+import java.util.Arrays;
+
+/**
+ * Line start table of a source file
+ * Tokens only keep their offset, the line and column are found by binary search when a message needs them
+ */
+public class LineMap {
+
+    private final int[] lineStarts; // offset of the first character of each line
+    private final int lines;
+
+    /**
+     * Constructor for LineMap, finds all the line starts in one pass
+     * @param input input string (source code)
+     */
+    public LineMap(String input) {
+        int[] starts = new int[16];
+        int count = 1; // line 1 starts at offset 0
+        for (int i = input.indexOf('\n'); i >= 0; i = input.indexOf('\n', i + 1)) {
+            if (count == starts.length) starts = Arrays.copyOf(starts, count * 2);
+            starts[count++] = i + 1;
+        }
+        this.lineStarts = starts;
+        this.lines = count;
+    }
+
+    /**
+     * Get the line of an offset
+     * @param offset the offset in the source
+     * @return the line number (starting at 1)
+     */
+    public int line(int offset) {
+        int index = Arrays.binarySearch(lineStarts, 0, lines, offset);
+        return index >= 0 ? index + 1 : -index - 1; // insertion point - 1 is the line index
+    }
+
+    /**
+     * Get the column of an offset
+     * @param offset the offset in the source
+     * @return the column number (starting at 1)
+     */
+    public int column(int offset) {
+        return offset - lineStarts[line(offset) - 1] + 1;
+    }
+
+    /**
+     * Get the position of a token for a message
+     * @return "line l, column c"
+     */
+    public String position(Token token) {
+        return "line " + line(token.offset) + ", column " + column(token.offset);
+    }
+}
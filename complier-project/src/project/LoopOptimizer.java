@@ -0,0 +1,459 @@
+package project;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Loop optimizer for the while and repeat statements
+ * It finds the natural loops (while-stmt and repeat-stmt bodies) and looks for
+ *  - loop invariant expressions that can be hoisted out of the loop
+ *  - multiplications by an induction variable that can be turned into additions
+ *  - mod / div by a power of two that can be turned into a mask / shift (only for an int operand that is never negative)
+ * The compiler has no code generator yet, so the result is a report of the transformations
+ */
+public class LoopOptimizer {
+
+    /**
+     * A node of an expression tree built from exp -> term exp-prime , term -> factor term-prime
+     * A leaf holds a name or a value, an inner node holds an operator and its two operands
+     */
+    static class Expr {
+        final Token token;
+        final Expr left;
+        final Expr right;
+
+        Expr(Token token, Expr left, Expr right) {
+            this.token = token;
+            this.left = left;
+            this.right = right;
+        }
+
+        boolean isLeaf() {
+            return left == null;
+        }
+
+        @Override
+        public String toString() {
+            if (isLeaf()) return token.value;
+            return text(left) + " " + token.value + " " + text(right);
+        }
+
+        private static String text(Expr operand) {
+            return operand.isLeaf() ? operand.toString() : "(" + operand + ")";
+        }
+    }
+
+    /**
+     * A while or repeat loop, the body is the tokens between start (inclusive) and end (exclusive)
+     */
+    static class Loop {
+        final Token keyword;
+        final int start;
+        final int end;
+        final Map<String, String> constants; // the consts of the routine the loop is in (name -> value)
+        final Map<String, TokenType> types;  // the data types of the vars and consts the routine sees
+
+        Loop(Token keyword, int start, int end, Map<String, String> constants, Map<String, TokenType> types) {
+            this.keyword = keyword;
+            this.start = start;
+            this.end = end;
+            this.constants = constants;
+            this.types = types;
+        }
+    }
+
+    /**
+     * An assignment var-name := exp (or cin >> var-name, then rhs is null)
+     */
+    static class Assignment {
+        final int index;  // index of the var-name token
+        final Token target;
+        final Expr rhs;
+
+        Assignment(int index, Token target, Expr rhs) {
+            this.index = index;
+            this.target = target;
+            this.rhs = rhs;
+        }
+    }
+
+    private final List<Token> tokens;
+    private final LineMap lines;
+    private int pos;
+    private Map<String, String> constants;       // the consts of the loop being optimized
+    private Map<String, TokenType> types;        // the data types of the names of the loop being optimized
+    private final List<Loop> loops = new ArrayList<>();
+    private final List<Assignment> assignments = new ArrayList<>();
+    private final Set<Expr> reported = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final List<String> report = new ArrayList<>();
+    private int hoisted;
+    private int strengthReduced;
+    private int simplified;
+
+    /**
+     * Constructor for LoopOptimizer
+     * @param tokens the tokens of the program (ending with EOF)
+     * @param lines the line map of the program
+     */
+    public LoopOptimizer(List<Token> tokens, LineMap lines) {
+        this.tokens = tokens;
+        this.lines = lines;
+    }
+
+    /**
+     * Run the optimizer over all the loops of the program
+     * @return the report lines
+     */
+    public List<String> optimize() {
+        collect();
+        for (Loop loop : loops) {
+            optimizeLoop(loop);
+        }
+        report.add("Loops: " + loops.size() + ", hoisted: " + hoisted + ", strength reduced: "
+                + strengthReduced + ", mod/div simplified: " + simplified);
+        return report;
+    }
+
+    /**
+     * Collect the constants, the data types, the loops and the assignments of the program
+     * The main block sees the global consts, a function sees the global consts and its own
+     * (a var of the function hides a global const of the same name), the data types are scoped the same way
+     */
+    private void collect() {
+        Map<String, String> globals = new HashMap<>();
+        Map<String, TokenType> globalTypes = new HashMap<>();
+        Map<String, String> scope = globals;
+        Map<String, TokenType> typeScope = globalTypes;
+        int functionEnd = -1; // index of the endb of the function being read
+        for (int i = 0; i < tokens.size(); i++) {
+            Token token = tokens.get(i);
+            if (i > functionEnd) {
+                scope = globals;
+                typeScope = globalTypes;
+            }
+            switch (token.type) {
+                case FUNCTION: {
+                    scope = new HashMap<>(globals);
+                    typeScope = new HashMap<>(globalTypes);
+                    int newb = find(i, TokenType.NEWB);
+                    functionEnd = newb < 0 ? tokens.size() : match(newb + 1, TokenType.NEWB, TokenType.ENDB);
+                    break;
+                }
+                case CONST:
+                    // const data-type const-name = value ;
+                    if (i + 4 < tokens.size() && tokens.get(i + 2).type == TokenType.IDENTIFIER) {
+                        scope.put(tokens.get(i + 2).value, tokens.get(i + 4).value);
+                        typeScope.put(tokens.get(i + 2).value, tokens.get(i + 1).type);
+                    }
+                    break;
+                case VAR:
+                    // var data-type name-list ;
+                    for (int d = i + 2; d < tokens.size() && tokens.get(d).type == TokenType.IDENTIFIER; d += 2) {
+                        if (scope != globals) scope.remove(tokens.get(d).value);
+                        typeScope.put(tokens.get(d).value, tokens.get(i + 1).type);
+                        if (d + 1 >= tokens.size() || tokens.get(d + 1).type != TokenType.COMMA) break;
+                    }
+                    break;
+                case WHILE: {
+                    int start = find(i, TokenType.NEWB) + 1;
+                    if (start > 0) loops.add(new Loop(token, start, match(start, TokenType.NEWB, TokenType.ENDB), scope, typeScope));
+                    break;
+                }
+                case REPEAT:
+                    loops.add(new Loop(token, i + 1, match(i + 1, TokenType.REPEAT, TokenType.UNTIL), scope, typeScope));
+                    break;
+                case ASSIGN:
+                    if (i > 0 && tokens.get(i - 1).type == TokenType.IDENTIFIER) {
+                        pos = i + 1;
+                        assignments.add(new Assignment(i - 1, tokens.get(i - 1), exp()));
+                    }
+                    break;
+                case CIN:
+                    if (i + 2 < tokens.size() && tokens.get(i + 2).type == TokenType.IDENTIFIER) {
+                        assignments.add(new Assignment(i + 2, tokens.get(i + 2), null));
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Find the first token of the given type after index from
+     * @return the index of the token or -1
+     */
+    private int find(int from, TokenType type) {
+        for (int i = from; i < tokens.size(); i++) {
+            if (tokens.get(i).type == type) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Find the closing token that matches an already opened one (nested pairs are skipped)
+     * @return the index of the closing token (or the EOF index)
+     */
+    private int match(int from, TokenType open, TokenType close) {
+        int depth = 0;
+        for (int i = from; i < tokens.size(); i++) {
+            TokenType type = tokens.get(i).type;
+            if (type == open) {
+                depth++;
+            } else if (type == close) {
+                if (depth == 0) return i;
+                depth--;
+            }
+        }
+        return tokens.size() - 1;
+    }
+
+    /*
+     * exp -> term   exp-prime ,  exp-prime -> add-oper   term   exp-prime   |   λ
+     */
+    private Expr exp() {
+        Expr left = term();
+        while (left != null && (current().type == TokenType.ADD || current().type == TokenType.SUBTRACT)) {
+            Token operator = tokens.get(pos++);
+            Expr right = term();
+            left = right == null ? null : new Expr(operator, left, right);
+        }
+        return left;
+    }
+
+    /*
+     * term -> factor   term-prime ,  term-prime -> mul-oper   factor   term-prime   |   λ
+     */
+    private Expr term() {
+        Expr left = factor();
+        while (left != null && (current().type == TokenType.MULTIPLY || current().type == TokenType.DIVIDE
+                || current().type == TokenType.MOD || current().type == TokenType.DIV)) {
+            Token operator = tokens.get(pos++);
+            Expr right = factor();
+            left = right == null ? null : new Expr(operator, left, right);
+        }
+        return left;
+    }
+
+    /*
+     * factor ->  (   exp   )   |   var-name   |   const-name   |   value
+     */
+    private Expr factor() {
+        Token token = current();
+        if (token.type == TokenType.LPAREN) {
+            pos++;
+            Expr inner = exp();
+            if (current().type != TokenType.RPAREN) return null;
+            pos++;
+            return inner;
+        }
+        if (token.type == TokenType.IDENTIFIER || token.type == TokenType.INT || token.type == TokenType.FLOUT) {
+            pos++;
+            return new Expr(token, null, null);
+        }
+        return null; // not an expression, the parser reports the syntax error
+    }
+
+    private Token current() {
+        return tokens.get(Math.min(pos, tokens.size() - 1));
+    }
+
+    /**
+     * Report the transformations of one loop
+     * @param loop the loop
+     */
+    private void optimizeLoop(Loop loop) {
+        report.add(loop.keyword.value + " loop at line " + lines.line(loop.keyword.offset) + ":");
+        constants = loop.constants;
+        types = loop.types;
+        int before = report.size();
+
+        // variables written inside the loop, a call may write any variable
+        boolean hasCall = false;
+        for (int i = loop.start; i < loop.end; i++) {
+            if (tokens.get(i).type == TokenType.CALL) hasCall = true;
+        }
+        Map<String, Integer> writes = new HashMap<>();
+        for (Assignment assignment : assignments) {
+            if (inside(loop, assignment)) writes.merge(assignment.target.value, 1, Integer::sum);
+        }
+
+        // basic induction variables: i := i + c   or   i := i - c   (once, not under a condition)
+        Map<String, String> steps = new HashMap<>();
+        for (Assignment assignment : assignments) {
+            if (!inside(loop, assignment) || assignment.rhs == null || !topLevel(loop, assignment.index)) continue;
+            String name = assignment.target.value;
+            Expr rhs = assignment.rhs;
+            if (writes.get(name) != 1 || rhs.isLeaf()) continue;
+            if (rhs.token.type == TokenType.ADD && isName(rhs.left, name) && invariant(rhs.right, writes, hasCall)) {
+                steps.put(name, rhs.right.toString());
+            } else if (rhs.token.type == TokenType.ADD && isName(rhs.right, name) && invariant(rhs.left, writes, hasCall)) {
+                steps.put(name, rhs.left.toString());
+            } else if (rhs.token.type == TokenType.SUBTRACT && isName(rhs.left, name) && invariant(rhs.right, writes, hasCall)) {
+                steps.put(name, "-" + rhs.right);
+            }
+        }
+
+        for (Assignment assignment : assignments) {
+            if (inside(loop, assignment) && assignment.rhs != null) {
+                visit(assignment.rhs, lines.line(assignment.target.offset), writes, hasCall, steps,
+                        topLevel(loop, assignment.index));
+            }
+        }
+        if (report.size() == before) report.add("  no optimizations found");
+    }
+
+    /**
+     * Visit an expression tree, an invariant subtree is hoisted as a whole
+     * A subtree that can trap (/ div mod) is only hoisted from a statement that runs on every pass,
+     * otherwise its invariant operands are hoisted (hoisted out of a while loop it goes after the first true test,
+     * so it is not computed when the loop runs zero times)
+     * @param everyPass the statement of the expression runs on every pass of the loop
+     */
+    private void visit(Expr expr, int line, Map<String, Integer> writes, boolean hasCall, Map<String, String> steps,
+                       boolean everyPass) {
+        if (expr.isLeaf() || reported.contains(expr)) return;
+        if (invariant(expr, writes, hasCall) && (everyPass || !traps(expr))) {
+            reported.add(expr);
+            hoisted++;
+            report.add("  line " + line + ": hoist '" + expr + "' (loop invariant)");
+            return;
+        }
+        if (expr.token.type == TokenType.MULTIPLY) {
+            String induction = null;
+            Expr factor = null;
+            if (expr.left.isLeaf() && steps.containsKey(expr.left.token.value) && invariant(expr.right, writes, hasCall)) {
+                induction = expr.left.token.value;
+                factor = expr.right;
+            } else if (expr.right.isLeaf() && steps.containsKey(expr.right.token.value) && invariant(expr.left, writes, hasCall)) {
+                induction = expr.right.token.value;
+                factor = expr.left;
+            }
+            if (induction != null) {
+                reported.add(expr);
+                strengthReduced++;
+                report.add("  line " + line + ": strength reduction '" + expr + "' -> temporary increased by ("
+                        + steps.get(induction) + ") * " + factor + " each time '" + induction + "' steps");
+            }
+        }
+        if ((expr.token.type == TokenType.MOD || expr.token.type == TokenType.DIV) && !reported.contains(expr)) {
+            long divisor = powerOfTwo(expr.right);
+            // x & (2^k - 1) and x >> k only give the same result as mod / div for an int x >= 0
+            if (divisor > 1 && nonNegative(expr.left)) {
+                reported.add(expr);
+                simplified++;
+                String replacement = expr.token.type == TokenType.MOD
+                        ? Expr.text(expr.left) + " & " + (divisor - 1)
+                        : Expr.text(expr.left) + " >> " + Long.numberOfTrailingZeros(divisor);
+                report.add("  line " + line + ": '" + expr + "' -> '" + replacement + "'");
+            }
+        }
+        visit(expr.left, line, writes, hasCall, steps, everyPass);
+        visit(expr.right, line, writes, hasCall, steps, everyPass);
+    }
+
+    /**
+     * Check if evaluating an expression can fail (a division by zero)
+     */
+    private static boolean traps(Expr expr) {
+        if (expr.isLeaf()) return false;
+        TokenType type = expr.token.type;
+        return type == TokenType.DIVIDE || type == TokenType.DIV || type == TokenType.MOD || traps(expr.left) || traps(expr.right);
+    }
+
+    private boolean inside(Loop loop, Assignment assignment) {
+        return assignment.index >= loop.start && assignment.index < loop.end;
+    }
+
+    /**
+     * Check that the statement at index runs on every pass of the loop
+     * (it starts a statement of the loop body itself, not of a nested block, loop or if)
+     */
+    private boolean topLevel(Loop loop, int index) {
+        if (index != loop.start && tokens.get(index - 1).type != TokenType.SEMICOLON) return false;
+        int depth = 0;
+        for (int i = loop.start; i < index; i++) {
+            TokenType type = tokens.get(i).type;
+            if (type == TokenType.NEWB || type == TokenType.REPEAT) depth++;
+            else if (type == TokenType.ENDB || type == TokenType.UNTIL) depth--;
+        }
+        return depth == 0;
+    }
+
+    private boolean isName(Expr expr, String name) {
+        return expr.isLeaf() && expr.token.type == TokenType.IDENTIFIER && expr.token.value.equals(name);
+    }
+
+    /**
+     * Check if an expression has the same value on every pass of the loop
+     */
+    private boolean invariant(Expr expr, Map<String, Integer> writes, boolean hasCall) {
+        if (!expr.isLeaf()) {
+            return invariant(expr.left, writes, hasCall) && invariant(expr.right, writes, hasCall);
+        }
+        if (expr.token.type != TokenType.IDENTIFIER) return true; // value
+        String name = expr.token.value;
+        return constants.containsKey(name) || (!hasCall && !writes.containsKey(name));
+    }
+
+    /**
+     * Get the value of an integer value or an int constant if it is a power of two
+     * @return the value or -1
+     */
+    private long powerOfTwo(Expr expr) {
+        long number = intValue(expr);
+        return number > 0 && (number & (number - 1)) == 0 ? number : -1;
+    }
+
+    /**
+     * Check that an expression is an int that is never negative: integer values and int constants >= 0
+     * combined with + * div mod (there is no unary minus)
+     */
+    private boolean nonNegative(Expr expr) {
+        if (expr.isLeaf()) return intValue(expr) >= 0;
+        TokenType type = expr.token.type;
+        return (type == TokenType.ADD || type == TokenType.MULTIPLY || type == TokenType.DIV || type == TokenType.MOD)
+                && nonNegative(expr.left) && nonNegative(expr.right);
+    }
+
+    /**
+     * Get the value of an integer value or an int constant
+     * @return the value or -1 (a real value, a float / char constant or not a constant)
+     */
+    private long intValue(Expr expr) {
+        if (!expr.isLeaf()) return -1;
+        String value;
+        if (expr.token.type == TokenType.IDENTIFIER) {
+            if (types.get(expr.token.value) != TokenType.INT) return -1;
+            value = constants.get(expr.token.value);
+        } else {
+            if (expr.token.type != TokenType.INT) return -1;
+            value = expr.token.value;
+        }
+        if (value == null) return -1;
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    public static void optimize(String filePath) {
+        String input;
+        try {
+            File file = new File(filePath);
+            input = Files.readString(Path.of(file.getAbsolutePath()));
+        } catch (IOException e) {
+            System.out.println("Error reading file: " + e.getMessage());
+            return;
+        }
+        Lexer lexer = new Lexer(input);
+        LoopOptimizer optimizer = new LoopOptimizer(lexer.tokenize(), lexer.lines());
+        for (String line : optimizer.optimize()) {
+            System.out.println(line);
+        }
+    }
+}
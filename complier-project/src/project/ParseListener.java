@@ -0,0 +1,34 @@
+package project;
+
+/**
+ * Receives the parse events of a Parser as the program is read
+ * enter / exit come in nested pairs (one per production), terminal comes for every matched token.
+ * The parser builds no tree, so a listener only holds what it keeps itself.
+ * The source is not streamed: the Lexer works on the whole file as one String, so a parse still needs
+ * memory for the whole source (inputs larger than the heap are not supported)
+ */
+public interface ParseListener {
+
+    /**
+     * A production starts
+     * @param production the production
+     * @param token the first token of the production
+     */
+    default void enter(Production production, Token token) {
+    }
+
+    /**
+     * A production ends
+     * @param production the production
+     * @param token the last token of the production
+     */
+    default void exit(Production production, Token token) {
+    }
+
+    /**
+     * A token is matched
+     * @param token the token
+     */
+    default void terminal(Token token) {
+    }
+}
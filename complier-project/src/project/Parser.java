@@ -10,16 +10,44 @@ import java.nio.file.Path;
 public class Parser {
 
 	private final Lexer lexer;
+    private final ParseListener listener;
     private Token currentToken;
+    private Token previousToken;
     
     /**
      * Constructor for Parser
      * @param lexer lexer object
      */
     public Parser(Lexer lexer) {
+        this(lexer, new ParseListener() {});
+    }
+
+    /**
+     * Constructor for Parser with a listener for the parse events
+     * @param lexer lexer object
+     * @param listener receives the enter / exit / terminal events
+     */
+    public Parser(Lexer lexer, ParseListener listener) {
         this.lexer = lexer;
+        this.listener = listener;
         this.currentToken = lexer.nextToken();
     }
+
+    private void enter(Production production) {
+        listener.enter(production, currentToken);
+    }
+
+    private void exit(Production production) {
+        listener.exit(production, previousToken);
+    }
+
+    /**
+     * Get the position of the current token for an error message
+     * @return "line l, column c"
+     */
+    private String position() {
+        return lexer.lines().position(currentToken);
+    }
     
     /**
      * eat method to match the expected token type with the current token type and move to the next token
@@ -27,20 +55,30 @@ public class Parser {
      */
     private void eat(TokenType type) {
         if (currentToken.type == type) {
+            listener.terminal(currentToken);
+            previousToken = currentToken;
             currentToken = lexer.nextToken();
         } else {
-        	 System.err.println("Syntax Error at line " + currentToken.line + ": Expected " 
+        	 throw new SyntaxError("Syntax Error at " + position() + ": Expected " 
         	            + type + " but found " + currentToken.type + " [Token: " + currentToken.value + "]");
-        	        System.exit(1); // Exit the program or handle as needed
         }
     }
     
+    /**
+     * Parse the whole program
+     * @throws SyntaxError at the first syntax error
+     */
+    public void parse() {
+        proram();
+    }
+
     /**
      * program method to parse the program declaration
      * program ->  lib-decl  declarations  ( function-decl )*  block exit    
      */
     
     private void proram() {
+    	enter(Production.PROGRAM);
     	libDecl();  //method
     	declarations();
    	 while (currentToken.type == TokenType.FUNCTION) {
@@ -48,18 +86,21 @@ public class Parser {
     }
     	block();
     	eat(TokenType.EXIT);
+    	exit(Production.PROGRAM);
     }
     /*
      * lib-decl  ->  # include  <   file-name  >    ;     lib-decl     |      λ
      */
     private void libDecl(){
     	if(currentToken.type == TokenType.HASH) {
+    	enter(Production.LIB_DECL);
     	eat(TokenType.HASH);
     	eat(TokenType.INCLUDE);
     	eat(TokenType.LESS);
     	eat(TokenType.IDENTIFIER);
     	eat(TokenType.GREATER);
     	eat(TokenType.SEMICOLON);
+    	exit(Production.LIB_DECL);
     	libDecl();
     	}
     }
@@ -77,12 +118,14 @@ public class Parser {
      */
     private void constDecl() {
     	if(currentToken.type == TokenType.CONST) {
+    		enter(Production.CONST_DECL);
     		eat(TokenType.CONST);
     		dataType();
     		eat(TokenType.IDENTIFIER);
     		eat(TokenType.EQUAL);
     		value();
     		eat(TokenType.SEMICOLON);
+    		exit(Production.CONST_DECL);
     		constDecl();
     	}
     		
@@ -93,10 +136,12 @@ public class Parser {
      */
     private void varDecl() {
     	if(currentToken.type == TokenType.VAR) {
+    		enter(Production.VAR_DECL);
     		 eat(TokenType.VAR);
     		dataType();
     		 nameList();   
     		eat(TokenType.SEMICOLON);
+    		exit(Production.VAR_DECL);
     		varDecl();
     	}
     }
@@ -134,9 +179,8 @@ public class Parser {
 	        eat(TokenType.CHAR); // Match 'char'
 	    } 
 	    else {
-	        System.err.println("Syntax Error at line " + currentToken.line + ": Expected a data type (int, float, or char) but found " 
+	        throw new SyntaxError("Syntax Error at " + position() + ": Expected a data type (int, float, or char) but found " 
 	                + currentToken.type + " [Token: " + currentToken.value + "]");
-	        System.exit(1); // Exit or handle the error as needed
 	    }
    }
    
@@ -145,10 +189,12 @@ public class Parser {
     */
     
    private void functionDecl() {  
+	   enter(Production.FUNCTION_DECL);
 	   functionHeading();
 	   declarations();
 	    block();
 	   eat(TokenType.SEMICOLON);
+	   exit(Production.FUNCTION_DECL);
    }
    
    /*
@@ -165,9 +211,11 @@ public class Parser {
    */
     
   private void block() {
+	  enter(Production.BLOCK);
 	  eat(TokenType.NEWB);
 	  stmtList();
 	  eat(TokenType.ENDB);
+	  exit(Production.BLOCK);
   }
   
   /*
@@ -209,9 +257,8 @@ public class Parser {
               block(); // call block of statements
               break;
           default:
-              System.err.println("Syntax Error: Unexpected token " + currentToken.value 
-                      + " at line " + currentToken.line);
-              System.exit(1); // Handle unexpected tokens with an error
+              throw new SyntaxError("Syntax Error: Unexpected token " + currentToken.value 
+                      + " at " + position());
       }
   }
 
@@ -219,17 +266,21 @@ public class Parser {
    * ass-stmt -> var-name     :=      exp
    */
   private void assStmt() {
+	  enter(Production.ASS_STMT);
 	  eat(TokenType.IDENTIFIER); // var-name
 	  eat(TokenType.ASSIGN); //:=
 	  exp();
+	  exit(Production.ASS_STMT);
   }
   
   /*
    * exp -> term      exp-prime
    */
   private void exp() {
+	  enter(Production.EXP);
 	  term();
 	  expPrime();
+	  exit(Production.EXP);
   }
     
   /*
@@ -252,9 +303,8 @@ public class Parser {
 	    } else if (currentToken.type == TokenType.SUBTRACT) {
 	        eat(TokenType.SUBTRACT); // Match - token
 	    } else {
-	        System.err.println("Syntax Error at line " + currentToken.line + ": Expected '+' or '-' but found " 
+	        throw new SyntaxError("Syntax Error at " + position() + ": Expected '+' or '-' but found " 
 	                + currentToken.type + " [Token: " + currentToken.value + "]");
-	        System.exit(1); // Exit or handle the error as needed
 	    }
   }
   
@@ -295,9 +345,8 @@ public class Parser {
 	    } else if (currentToken.type == TokenType.DIV) {
 	        eat(TokenType.DIV);     // Match div token
 	    } else {
-	        System.err.println("Syntax Error at line " + currentToken.line + ": Expected '*' or '/' or 'mod' or 'div' but found " 
+	        throw new SyntaxError("Syntax Error at " + position() + ": Expected '*' or '/' or 'mod' or 'div' but found " 
 	                + currentToken.type + " [Token: " + currentToken.value + "]");
-	        System.exit(1); // Exit or handle the error as needed
 	    }
   }
   
@@ -314,9 +363,8 @@ public class Parser {
 	    } else if (currentToken.type == TokenType.INT || currentToken.type == TokenType.FLOUT) { // value
 	        value(); // call the value (either integer or real)
 	    } else {
-	        System.err.println("Syntax Error at line " + currentToken.line + ": Expected '(' or identifier or value but found " 
+	        throw new SyntaxError("Syntax Error at " + position() + ": Expected '(' or identifier or value but found " 
 	                + currentToken.type + " [Token: " + currentToken.value + "]");
-	        System.exit(1); // Exit or handle the error as needed
 	    }
   }
   
@@ -330,9 +378,8 @@ public class Parser {
 	    } else if (currentToken.type == TokenType.FLOUT) { // Real value
 	        realValue(); // call a real value
 	    } else {
-	        System.err.println("Syntax Error at line " + currentToken.line + ": Expected an integer or real value but found " 
+	        throw new SyntaxError("Syntax Error at " + position() + ": Expected an integer or real value but found " 
 	                + currentToken.type + " [Token: " + currentToken.value + "]");
-	        System.exit(1); 
 	    }
   }
   
@@ -343,9 +390,8 @@ public class Parser {
 	  if (currentToken.type == TokenType.INT) {
 	        eat(TokenType.INT); // Match the integer value
 	    } else {
-	        System.err.println("Syntax Error at line " + currentToken.line + ": Expected an integer value but found " 
+	        throw new SyntaxError("Syntax Error at " + position() + ": Expected an integer value but found " 
 	                + currentToken.type + " [Token: " + currentToken.value + "]");
-	        System.exit(1); // error
 	    }
   }
   
@@ -356,9 +402,8 @@ public class Parser {
 	  if (currentToken.type == TokenType.FLOUT) {
 	        eat(TokenType.FLOUT); // Match the real value
 	    } else {
-	        System.err.println("Syntax Error at line " + currentToken.line + ": Expected a real value but found " 
+	        throw new SyntaxError("Syntax Error at " + position() + ": Expected a real value but found " 
 	                + currentToken.type + " [Token: " + currentToken.value + "]");
-	        System.exit(1); // Exit or handle the error as needed
 	    }
   }
   
@@ -367,6 +412,7 @@ public class Parser {
    */
   
   private void inoutStmt() {
+	  enter(Production.INOUT_STMT);
 	  if (currentToken.type == TokenType.CIN) {  //case  cin
 	        eat(TokenType.CIN); 
 	         eat(TokenType.RIGHT_SHIFT); 
@@ -376,10 +422,10 @@ public class Parser {
 	        eat(TokenType.LEFT_SHIFT);  ///<<
 	        nameValue(); 
 	    } else {
-	        System.err.println("Syntax Error: Expected 'cin' or 'cout' but found " 
-	                + currentToken.value + " at line " + currentToken.line);
-	        System.exit(1);   // error
+	        throw new SyntaxError("Syntax Error: Expected 'cin' or 'cout' but found " 
+	                + currentToken.value + " at " + position());
 	    }
+	  exit(Production.INOUT_STMT);
   }
   /*
    * name-value ->  var-name    |    const-name   |      value 
@@ -395,9 +441,8 @@ public class Parser {
           value(); 
           break;
       default:
-          System.err.println("Syntax Error: Expected a variable, constant, or value but found " 
-                  + currentToken.value + " at line " + currentToken.line);
-          System.exit(1); 
+          throw new SyntaxError("Syntax Error: Expected a variable, constant, or value but found " 
+                  + currentToken.value + " at " + position());
      }
   }
   
@@ -407,12 +452,14 @@ public class Parser {
    * if-stmt -> if  (   condition  )  statement     else-part     
    */
   private void ifStmt() {
+	  enter(Production.IF_STMT);
 	  eat(TokenType.IF);//matchinggggg the if
 	  eat(TokenType.LPAREN);
 	  condition();
 	  eat(TokenType.RPAREN);
 	  statement();
 	  elsePart();
+	  exit(Production.IF_STMT);
   }
   /*
    * 
@@ -429,9 +476,11 @@ public class Parser {
    * condition -> name-value       relational-oper        name-value 
    */
   private void condition() {
+	  enter(Production.CONDITION);
 	  nameValue();
 	  relationalOper();
 	  nameValue();
+	  exit(Production.CONDITION);
   }
   /*
    * relational-oper ->  =      |       =!         |     <     |       =<     |     >     |     =>
@@ -458,8 +507,7 @@ public class Parser {
 	            eat(TokenType.GREATER_EQUAL);
 	            break;
 	        default:
-	            System.err.println("Syntax Error at line " + currentToken.line + ": Expected a relational operator but found " + currentToken.value);
-	            System.exit(1); //error
+	            throw new SyntaxError("Syntax Error at " + position() + ": Expected a relational operator but found " + currentToken.value);
 	    }
 	}
   
@@ -468,6 +516,7 @@ public class Parser {
    */
 
   private void whileStmt() {
+	  enter(Production.WHILE_STMT);
 	  eat(TokenType.WHILE);//matchinggggg the while
 	  eat(TokenType.LPAREN);
 	  condition();
@@ -475,25 +524,40 @@ public class Parser {
 	  eat(TokenType.NEWB);
 	  stmtList();
 	  eat(TokenType.ENDB);
+	  exit(Production.WHILE_STMT);
   }
   /*
    * repeat-stmt   -> repeat      stmt-list       until        condition   
    */
   private void repeatStmt() {
+	  enter(Production.REPEAT_STMT);
 	  eat(TokenType.REPEAT); //match repeat :(
 	  stmtList();
 	  eat(TokenType.UNTIL);  // match until
 	  condition();
+	  exit(Production.REPEAT_STMT);
   }
   
   /*
    * function-call-stmt   ->  call function-name
    */
   private void functionCallStmt() { // Finally the last method :)
+	  enter(Production.FUNCTION_CALL_STMT);
 	  eat(TokenType.CALL);
 	  eat(TokenType.IDENTIFIER);
+	  exit(Production.FUNCTION_CALL_STMT);
   }
   public static void parse(String filePath) {
+      parse(filePath, new ParseListener() {});
+  }
+
+  /**
+   * Parse a file and send the parse events to a listener
+   * (the whole file is read into memory first)
+   * @param filePath the source file
+   * @param listener receives the enter / exit / terminal events
+   */
+  public static void parse(String filePath, ParseListener listener) {
       String input;
       try {
           File file = new File(filePath);
@@ -503,8 +567,13 @@ public class Parser {
           return;
       }
       Lexer lexer = new Lexer(input);
-      Parser parser = new Parser(lexer);
-      parser.proram();
+      Parser parser = new Parser(lexer, listener);
+      try {
+          parser.parse();
+      } catch (SyntaxError e) {
+          System.err.println(e.getMessage());
+          System.exit(1);
+      }
       System.out.println("Parsing completed successfully.");  
       
   }
@@ -0,0 +1,187 @@
+package project;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Equivalence check of the hand written Parser against the TableParser generated from grammar.txt
+ * Both parsers run on the example programs, on random programs derived from the grammar and on
+ * random edits of both (a token removed, repeated, swapped or replaced): they must accept and reject the same inputs
+ *
+ * Usage: java project.ParserCheck [examples directory] [random programs]
+ */
+public class ParserCheck {
+
+    private static final int MAX_DEPTH = 6;
+
+    /**
+     * Source text of each terminal (INT is both the int data type and an integer value, "int" lexes as INT too)
+     */
+    private static final Map<TokenType, String> spelling = new EnumMap<>(TokenType.class);
+    static {
+        for (Map.Entry<String, TokenType> keyword : Lexer.keywords.entrySet()) {
+            spelling.put(keyword.getValue(), keyword.getKey());
+        }
+        spelling.put(TokenType.INT, "7");
+        spelling.put(TokenType.FLOUT, "2.5");
+        spelling.put(TokenType.IDENTIFIER, "x");
+        spelling.put(TokenType.COMMA, ",");
+        spelling.put(TokenType.SEMICOLON, ";");
+        spelling.put(TokenType.ADD, "+");
+        spelling.put(TokenType.SUBTRACT, "-");
+        spelling.put(TokenType.MULTIPLY, "*");
+        spelling.put(TokenType.DIVIDE, "/");
+        spelling.put(TokenType.ASSIGN, ":=");
+        spelling.put(TokenType.LEFT_SHIFT, "<<");
+        spelling.put(TokenType.RIGHT_SHIFT, ">>");
+        spelling.put(TokenType.DOT, ".");
+        spelling.put(TokenType.LPAREN, "(");
+        spelling.put(TokenType.RPAREN, ")");
+        spelling.put(TokenType.EQUAL, "=");
+        spelling.put(TokenType.LESS_EQUAL, "=<");
+        spelling.put(TokenType.LESS, "<");
+        spelling.put(TokenType.NOT_EQUAL, "=!");
+        spelling.put(TokenType.GREATER_EQUAL, "=>");
+        spelling.put(TokenType.GREATER, ">");
+        spelling.put(TokenType.HASH, "#");
+        spelling.put(TokenType.INVALID, "?");
+    }
+
+    private final Grammar grammar;
+    private final Random random;
+    private final List<List<Integer>> alternatives = new ArrayList<>(); // productions of each non terminal
+
+    ParserCheck(Grammar grammar, Random random) {
+        this.grammar = grammar;
+        this.random = random;
+        for (int n = 0; n < grammar.nonterminalCount(); n++) {
+            Set<Integer> productions = new TreeSet<>();
+            for (TokenType type : TokenType.values()) {
+                int production = grammar.predict(n, type);
+                if (production >= 0) productions.add(production);
+            }
+            alternatives.add(new ArrayList<>(productions));
+        }
+    }
+
+    /**
+     * Derive a random program from the start symbol, below MAX_DEPTH the shortest production is taken
+     * @return the terminals of the program
+     */
+    List<TokenType> derive() {
+        List<TokenType> program = new ArrayList<>();
+        derive(grammar.startSymbol(), 0, program);
+        return program;
+    }
+
+    private void derive(int symbol, int depth, List<TokenType> program) {
+        if (symbol < Grammar.TERMINALS) {
+            program.add(TokenType.values()[symbol]);
+            return;
+        }
+        List<Integer> productions = alternatives.get(symbol - Grammar.TERMINALS);
+        int production = productions.get(random.nextInt(productions.size()));
+        if (depth >= MAX_DEPTH) {
+            for (int p : productions) {
+                if (grammar.production(p).length < grammar.production(production).length) production = p;
+            }
+        }
+        for (int child : grammar.production(production)) {
+            derive(child, depth + 1, program);
+        }
+    }
+
+    /**
+     * Apply one random edit to a token list
+     */
+    List<String> edit(List<String> tokens) {
+        List<String> edited = new ArrayList<>(tokens);
+        if (edited.isEmpty()) return edited;
+        int i = random.nextInt(edited.size());
+        switch (random.nextInt(4)) {
+            case 0: edited.remove(i); break;
+            case 1: edited.add(i, edited.get(i)); break;
+            case 2: if (i + 1 < edited.size()) Collections.swap(edited, i, i + 1); break;
+            default: edited.set(i, spelling.get(TokenType.values()[random.nextInt(TokenType.values().length)]));
+        }
+        return edited;
+    }
+
+    private static List<String> words(List<TokenType> types) {
+        List<String> words = new ArrayList<>();
+        for (TokenType type : types) {
+            if (type != TokenType.EOF) words.add(spelling.get(type));
+        }
+        return words;
+    }
+
+    private static List<String> words(String input) {
+        List<String> words = new ArrayList<>();
+        for (Token token : new Lexer(input).tokenize()) {
+            if (token.type != TokenType.EOF) words.add(token.value);
+        }
+        return words;
+    }
+
+    /**
+     * Run one parser
+     * @return accepted, rejected (a SyntaxError) or failed
+     */
+    private static String result(Runnable parse) {
+        try {
+            parse.run();
+            return "accepted";
+        } catch (SyntaxError e) {
+            return "rejected";
+        } catch (RuntimeException | StackOverflowError e) {
+            return "failed (" + e + ")";
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path examples = Path.of(args.length > 0 ? args[0] : "examples");
+        int programs = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+        ParserCheck check = new ParserCheck(Grammar.load(), new Random(1));
+        List<List<String>> inputs = new ArrayList<>();
+
+        if (Files.isDirectory(examples)) {
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(examples, "*.txt")) {
+                for (Path file : stream) {
+                    inputs.add(words(Files.readString(file)));
+                }
+            }
+        }
+        int files = inputs.size();
+        for (int n = 0; n < programs; n++) {
+            inputs.add(words(check.derive()));
+        }
+
+        int failures = 0;
+        int accepted = 0;
+        int checked = 0;
+        for (List<String> input : inputs) {
+            // the input itself, then random edits of it
+            List<String> edited = input;
+            for (int e = 0; e < 5; e++) {
+                String source = String.join(" ", edited);
+                String table = result(() -> new TableParser(check.grammar, new Lexer(source)).parse());
+                String hand = result(() -> new Parser(new Lexer(source)).parse());
+                checked++;
+                if (!table.equals(hand)) {
+                    failures++;
+                    System.out.println("\"" + source + "\": TableParser " + table + ", Parser " + hand);
+                } else if (table.equals("accepted")) {
+                    accepted++;
+                }
+                edited = check.edit(input);
+            }
+        }
+
+        System.out.println(files + " example(s), " + programs + " random program(s), " + checked + " input(s) ("
+                + accepted + " accepted), " + failures + " difference(s)");
+        if (failures > 0) System.exit(1);
+    }
+}
@@ -0,0 +1,13 @@
+package project;
+
+
+/**
+ * Enum class for the grammar productions reported to a ParseListener
+ */
+
+public enum Production {
+
+	PROGRAM, LIB_DECL, CONST_DECL, VAR_DECL, FUNCTION_DECL, BLOCK,
+	ASS_STMT, INOUT_STMT, IF_STMT, WHILE_STMT, REPEAT_STMT, FUNCTION_CALL_STMT,
+	CONDITION, EXP
+}
@@ -0,0 +1,13 @@
+package project;
+
+/**
+ * A syntax error found while parsing, the message has the line and the found token
+ */
+public class SyntaxError extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public SyntaxError(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,103 @@
+package project;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Table driven LL(1) parser
+ * The parse table is generated from grammar.txt by Grammar, the parser keeps the symbols
+ * still to be matched on an explicit stack, so the nesting depth of the program does not use the call stack
+ * ParserCheck checks that it accepts the same programs as the hand written Parser
+ *
+ * Usage: java project.TableParser [--sets] files   (--sets prints the FIRST and FOLLOW sets of grammar.txt)
+ */
+public class TableParser {
+
+    private final Grammar grammar;
+    private final Lexer lexer;
+    private Token currentToken;
+    private int[] stack = new int[64];
+    private int size;
+
+    /**
+     * Constructor for TableParser
+     * @param grammar the grammar (parse table)
+     * @param lexer lexer object
+     */
+    public TableParser(Grammar grammar, Lexer lexer) {
+        this.grammar = grammar;
+        this.lexer = lexer;
+        this.currentToken = lexer.nextToken();
+    }
+
+    private void push(int symbol) {
+        if (size == stack.length) stack = Arrays.copyOf(stack, size * 2);
+        stack[size++] = symbol;
+    }
+
+    /**
+     * Parse the program: a terminal on top of the stack is matched with the current token,
+     * a non terminal is replaced by the production found in the table for the current token
+     * @throws SyntaxError at the first syntax error
+     */
+    public void parse() {
+        size = 0;
+        push(grammar.startSymbol());
+        while (size > 0) {
+            int top = stack[--size];
+            if (top < Grammar.TERMINALS) {
+                if (currentToken.type.ordinal() != top) {
+                    throw new SyntaxError("Syntax Error at " + lexer.lines().position(currentToken) + ": Expected "
+                            + grammar.name(top) + " but found " + currentToken.type + " [Token: " + currentToken.value + "]");
+                }
+                currentToken = lexer.nextToken();
+                continue;
+            }
+            int production = grammar.predict(top - Grammar.TERMINALS, currentToken.type);
+            if (production < 0) {
+                throw new SyntaxError("Syntax Error at " + lexer.lines().position(currentToken) + ": Expected "
+                        + grammar.name(top) + " " + grammar.expected(top - Grammar.TERMINALS)
+                        + " but found " + currentToken.type + " [Token: " + currentToken.value + "]");
+            }
+            int[] rhs = grammar.production(production);
+            for (int i = rhs.length - 1; i >= 0; i--) {
+                push(rhs[i]);
+            }
+        }
+    }
+
+    public static void parse(String filePath) {
+        String input;
+        Grammar grammar;
+        try {
+            File file = new File(filePath);
+            input = Files.readString(Path.of(file.getAbsolutePath()));
+            grammar = Grammar.load();
+        } catch (IOException e) {
+            System.out.println("Error reading file: " + e.getMessage());
+            return;
+        }
+        TableParser parser = new TableParser(grammar, new Lexer(input));
+        try {
+            parser.parse();
+        } catch (SyntaxError e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+        }
+        System.out.println("Parsing completed successfully.");
+    }
+
+    public static void main(String[] args) throws IOException {
+        int first = 0;
+        if (args.length > 0 && args[0].equals("--sets")) {
+            Grammar.load().print();
+            first = 1;
+        }
+        for (int i = first; i < args.length; i++) {
+            parse(args[i]);
+        }
+    }
+}
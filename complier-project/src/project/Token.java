@@ -2,17 +2,18 @@ package project;
 
 /**
  * A class to represent a token
- * TokenType and the value of the token and the line number
+ * TokenType and the value of the token and the offset of its first character in the source
+ * (the line and column are found with the LineMap of the Lexer)
  */
 public class Token {
     public TokenType type;
     public String value;
-    public int line;
+    public int offset;
 
-    public Token(TokenType type, String value ,int line) {
+    public Token(TokenType type, String value ,int offset) {
         this.type = type;
         this.value = value;
-        this.line = line;
+        this.offset = offset;
     }
 
     @Override
@@ -20,7 +21,7 @@ public class Token {
         return "Token{" +
                 "type=" + type +
                 ", value='" + value + '\'' +
-                ", line=" + line +
+                ", offset=" + offset +
                 '}';
     }
 }
\ No newline at end of file
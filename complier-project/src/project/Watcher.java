@@ -0,0 +1,218 @@
+package project;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * Watch mode: checks the source files of some directories again every time they change
+ * A burst of change events is grouped (debounced) into one recompilation, and only the changed files
+ * and the files that #include them (directly or not) are lexed and parsed again.
+ * The diagnostics are printed as each file finishes
+ *
+ * Usage: java project.Watcher [directories]   (the current directory when none is given)
+ */
+public class Watcher {
+
+    private static final long DEBOUNCE_MILLIS = 100;
+    private static final String EXTENSION = ".txt";
+
+    private final WatchService watchService;
+    private final Map<WatchKey, Path> directories = new HashMap<>();
+    private final Map<Path, Set<String>> includes = new HashMap<>();   // file -> names it includes
+    private final Map<String, Set<Path>> dependents = new HashMap<>(); // name -> files including it
+
+    /**
+     * Constructor for Watcher
+     * @param roots the source directories (sub directories are watched too)
+     */
+    public Watcher(List<Path> roots) throws IOException {
+        this.watchService = FileSystems.getDefault().newWatchService();
+        for (Path root : roots) {
+            register(root);
+        }
+    }
+
+    /**
+     * Watch a directory and all its sub directories
+     */
+    private void register(Path root) throws IOException {
+        try (Stream<Path> paths = Files.walk(root)) {
+            for (Path directory : (Iterable<Path>) paths.filter(Files::isDirectory)::iterator) {
+                directories.put(directory.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE), directory);
+            }
+        }
+    }
+
+    /**
+     * Check all the source files once, then check the changed files until the thread is interrupted
+     */
+    public void run() throws IOException, InterruptedException {
+        Set<Path> files = new TreeSet<>();
+        for (Path directory : new ArrayList<>(directories.values())) {
+            files.addAll(sourceFiles(directory));
+        }
+        for (Path file : files) {
+            check(file);
+        }
+        System.out.println("Watching " + directories.size() + " directories for changes");
+        while (true) {
+            WatchKey key = watchService.take();
+            Set<Path> changed = new LinkedHashSet<>();
+            // keep collecting until there is no event for DEBOUNCE_MILLIS
+            while (key != null) {
+                collect(key, changed);
+                key = watchService.poll(DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS);
+            }
+            recompile(changed);
+        }
+    }
+
+    private List<Path> sourceFiles(Path directory) throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + EXTENSION)) {
+            for (Path file : stream) {
+                if (Files.isRegularFile(file)) files.add(file);
+            }
+        }
+        return files;
+    }
+
+    /**
+     * Add the files of the events of a key to the changed files
+     */
+    private void collect(WatchKey key, Set<Path> changed) throws IOException {
+        Path directory = directories.get(key);
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == OVERFLOW) {
+                // events were lost: everything in the directory may have changed
+                if (directory != null && Files.isDirectory(directory)) changed.addAll(sourceFiles(directory));
+                changed.addAll(includes.keySet());
+                continue;
+            }
+            if (directory == null) continue;
+            Path path = directory.resolve((Path) event.context());
+            if (event.kind() == ENTRY_CREATE && Files.isDirectory(path)) {
+                register(path);
+                changed.addAll(sourceFiles(path));
+            } else if (path.toString().endsWith(EXTENSION)) {
+                changed.add(path);
+            }
+        }
+        if (!key.reset()) directories.remove(key);
+    }
+
+    /**
+     * Check the changed files and the files that include them
+     */
+    private void recompile(Set<Path> changed) {
+        long start = System.nanoTime();
+        Set<Path> affected = new LinkedHashSet<>();
+        Deque<Path> work = new ArrayDeque<>(changed);
+        while (!work.isEmpty()) {
+            Path file = work.poll();
+            if (!affected.add(file)) continue;
+            work.addAll(dependents.getOrDefault(name(file), Collections.emptySet()));
+        }
+        for (Path file : affected) {
+            if (Files.isRegularFile(file)) {
+                check(file);
+            } else {
+                forget(file);
+                System.out.println(file + ": deleted");
+            }
+        }
+        System.out.printf("%d file(s) checked in %.1f ms%n", affected.size(), (System.nanoTime() - start) / 1e6);
+    }
+
+    /**
+     * Lex and parse one file, print its diagnostic and update its includes
+     */
+    private void check(Path file) {
+        long start = System.nanoTime();
+        forget(file);
+        Set<String> names = new HashSet<>();
+        String result;
+        try {
+            String input = Files.readString(file);
+            Parser parser = new Parser(new Lexer(input), new ParseListener() {
+                private boolean libDecl;
+
+                @Override
+                public void enter(Production production, Token token) {
+                    if (production == Production.LIB_DECL) libDecl = true;
+                }
+
+                @Override
+                public void exit(Production production, Token token) {
+                    if (production == Production.LIB_DECL) libDecl = false;
+                }
+
+                @Override
+                public void terminal(Token token) {
+                    if (libDecl && token.type == TokenType.IDENTIFIER) names.add(token.value);
+                }
+            });
+            parser.parse();
+            result = "OK";
+        } catch (SyntaxError e) {
+            result = e.getMessage();
+        } catch (IOException e) {
+            result = "Error reading file: " + e.getMessage();
+        } catch (RuntimeException | StackOverflowError e) {
+            // a failure of the checker on one file (e.g. a too deeply nested program) must not stop the watch
+            result = "Internal error: " + e.getClass().getSimpleName() + (e.getMessage() == null ? "" : ": " + e.getMessage());
+        }
+        includes.put(file, names);
+        for (String name : names) {
+            dependents.computeIfAbsent(name, k -> new HashSet<>()).add(file);
+        }
+        System.out.printf("%s: %s (%.1f ms)%n", file, result, (System.nanoTime() - start) / 1e6);
+    }
+
+    /**
+     * Remove the include edges of a file
+     */
+    private void forget(Path file) {
+        Set<String> names = includes.remove(file);
+        if (names == null) return;
+        for (String name : names) {
+            Set<Path> files = dependents.get(name);
+            if (files != null) {
+                files.remove(file);
+                if (files.isEmpty()) dependents.remove(name);
+            }
+        }
+    }
+
+    /**
+     * The name a file is included with: #include <name> ; matches name.txt
+     */
+    private static String name(Path file) {
+        String fileName = file.getFileName().toString();
+        return fileName.endsWith(EXTENSION) ? fileName.substring(0, fileName.length() - EXTENSION.length()) : fileName;
+    }
+
+    public static void watch(String... roots) {
+        List<Path> paths = new ArrayList<>();
+        for (String root : roots) {
+            paths.add(Path.of(root).toAbsolutePath());
+        }
+        if (paths.isEmpty()) paths.add(Path.of("").toAbsolutePath());
+        try {
+            new Watcher(paths).run();
+        } catch (IOException e) {
+            System.out.println("Error watching files: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public static void main(String[] args) {
+        watch(args);
+    }
+}